@@ -0,0 +1,34 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared cache of the compounding and annuity factors used by the EMI and
+ * compound-interest formulas. Every product has a fixed rate and durations come
+ * from a small set, so each (rate, months) pair is computed with Math.pow once
+ * and reused for every loan that shares it.
+ */
+public final class AmortizationFactors {
+    private static final ConcurrentHashMap<Long, double[]> CACHE = new ConcurrentHashMap<>();
+
+    private AmortizationFactors() {}
+
+    // (1 + r)^n for an annual percentage rate compounded monthly over n months
+    public static double compound(double annualRatePercent, int months) {
+        return factors(annualRatePercent, months)[0];
+    }
+
+    // Level monthly installment per unit of principal: r(1+r)^n / ((1+r)^n - 1)
+    public static double annuity(double annualRatePercent, int months) {
+        return factors(annualRatePercent, months)[1];
+    }
+
+    private static double[] factors(double annualRatePercent, int months) {
+        // rate to 1e-6 percent in the high bits, months in the low 20 bits
+        long key = (Math.round(annualRatePercent * 1_000_000) << 20) | (months & 0xFFFFF);
+        return CACHE.computeIfAbsent(key, k -> {
+            double r = annualRatePercent / 12 / 100.0;
+            double f = Math.pow(1 + r, months);
+            double annuity = r == 0 ? 1.0 / months : r * f / (f - 1);
+            return new double[] {f, annuity};
+        });
+    }
+}
@@ -0,0 +1,157 @@
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Installment-by-installment repayment schedule of a loan, produced lazily:
+ * each row is computed from the previous balance only when the stream asks
+ * for it, so neither a single schedule nor a whole portfolio export is ever
+ * held in memory.
+ *
+ * Every schedule charges the loan's own lifetime interest from
+ * {@link Loan#calculateInterestMinor()}, so its payments add up to
+ * {@link Loan#calculateTotalPayableMinor()} and the balance column is what
+ * {@link Loan#getBalanceMinor()} shows once the installments so far are paid.
+ * Installment loans pay {@link Loan#getInstallmentMinor()} a month, an even
+ * share of principal and interest, with the last installment taking the
+ * rounding remainder. The reducing-balance EMI stored on the loan is not used
+ * here, as it totals less than the balance the borrower is actually charged.
+ * Other loans are repaid in one bullet at the due date.
+ */
+public class AmortizationSchedule {
+    public static final String CSV_HEADER = "LoanID,Period,DueDate,Payment,Principal,Interest,Balance";
+
+    public static class Installment {
+        private final String loanId;
+        private final int period;
+        private final LocalDate dueDate;
+        private final long payment;
+        private final long principal;
+        private final long interest;
+        private final long balance;
+
+        Installment(String loanId, int period, LocalDate dueDate, long payment, long principal, long interest, long balance) {
+            this.loanId = loanId;
+            this.period = period;
+            this.dueDate = dueDate;
+            this.payment = payment;
+            this.principal = principal;
+            this.interest = interest;
+            this.balance = balance;
+        }
+
+        public String getLoanId() { return loanId; }
+        public int getPeriod() { return period; }
+        public LocalDate getDueDate() { return dueDate; }
+        public long getPaymentMinor() { return payment; }
+        public long getPrincipalMinor() { return principal; }
+        public long getInterestMinor() { return interest; }
+        public long getBalanceMinor() { return balance; }
+
+        public StringBuilder appendCSV(StringBuilder sb) {
+            sb.append(loanId).append(',').append(period).append(',').append(dueDate).append(',');
+            Money.append(sb, payment).append(',');
+            Money.append(sb, principal).append(',');
+            Money.append(sb, interest).append(',');
+            return Money.append(sb, balance);
+        }
+
+        @Override
+        public String toString() { return appendCSV(new StringBuilder()).toString(); }
+    }
+
+    public static Stream<Installment> stream(Loan loan) {
+        Spliterator<Installment> rows = loan.isInstallment() ? new EmiRows(loan) : new BulletRow(loan);
+        return StreamSupport.stream(rows, false);
+    }
+
+    public static Stream<Installment> stream(Collection<Loan> loans) {
+        return loans.stream().flatMap(AmortizationSchedule::stream);
+    }
+
+    // Writes every loan's schedule to one CSV file in a single streaming pass
+    public static void writeCSV(Collection<Loan> loans, String filePath) throws IOException {
+        writeCSV(loans, filePath, done -> { });
+    }
+
+    /**
+     * Writes the schedules of the given loans, reporting the number of loans
+     * written every few thousand loans. An interrupt stops the export there
+     * with an InterruptedIOException.
+     */
+    public static void writeCSV(Collection<Loan> loans, String filePath, LongConsumer loansWritten) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
+            bw.write(CSV_HEADER);
+            bw.newLine();
+            StringBuilder sb = new StringBuilder(96);
+            long done = 0;
+            for (Loan loan : loans) {
+                Iterator<Installment> it = stream(loan).iterator();
+                while (it.hasNext()) {
+                    sb.setLength(0);
+                    bw.append(it.next().appendCSV(sb));
+                    bw.newLine();
+                }
+                if ((++done & 4095) != 0) continue;
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Export cancelled");
+                loansWritten.accept(done);
+            }
+            loansWritten.accept(done);
+        }
+    }
+
+    private static class EmiRows extends Spliterators.AbstractSpliterator<Installment> {
+        private final Loan loan;
+        private final long totalPrincipal;
+        private final long totalInterest;
+        private int period;
+        private long principalPaid;
+        private long interestPaid;
+
+        EmiRows(Loan loan) {
+            super(loan.getDurationMonths(), ORDERED | NONNULL | SIZED);
+            this.loan = loan;
+            this.totalPrincipal = loan.getPrincipalMinor();
+            this.totalInterest = loan.calculateInterestMinor();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Installment> action) {
+            int months = loan.getDurationMonths();
+            if (period >= months) return false;
+            period++;
+            long principal = period == months ? totalPrincipal - principalPaid : totalPrincipal / months;
+            long interest = period == months ? totalInterest - interestPaid : totalInterest / months;
+            principalPaid += principal;
+            interestPaid += interest;
+            long balance = totalPrincipal + totalInterest - principalPaid - interestPaid;
+            action.accept(new Installment(loan.getLoanId(), period, loan.getIssueDate().plusMonths(period),
+                    principal + interest, principal, interest, balance));
+            return true;
+        }
+    }
+
+    private static class BulletRow extends Spliterators.AbstractSpliterator<Installment> {
+        private final Loan loan;
+        private boolean done;
+
+        BulletRow(Loan loan) {
+            super(1, ORDERED | NONNULL | SIZED);
+            this.loan = loan;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Installment> action) {
+            if (done) return false;
+            done = true;
+            long principal = loan.getPrincipalMinor();
+            long interest = loan.calculateInterestMinor();
+            action.accept(new Installment(loan.getLoanId(), 1, loan.getDueDate(), principal + interest, principal, interest, 0));
+            return true;
+        }
+    }
+}
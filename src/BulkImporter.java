@@ -0,0 +1,239 @@
+import java.io.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk import of legacy customers, loans and payments into a DataStore.
+ *
+ * Input files use the same CSV layout as the data files. They are streamed in
+ * batches: each batch is parsed and validated in parallel, rows that fail are
+ * quarantined to an error file (row number, reason, original record), and the
+ * good rows are inserted with one journal append per batch. Checks that
+ * depend on the store (unknown customer or loan, duplicate IDs) run in the
+ * sequential insert step so rows inside the same file see each other.
+ *
+ * Imported payments are history: the imported loan balances already include
+ * them, so they are recorded without touching the loans. postPayments is the
+ * path for new payments that must be applied to their loans.
+ *
+ * Interrupting the importing thread stops it at the next batch boundary with
+ * an InterruptedIOException; batches already inserted stay imported.
+ */
+public class BulkImporter {
+    private static final int BATCH_SIZE = 20_000;
+
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long imported, long rejected);
+    }
+
+    public static class Result {
+        private final long read;
+        private final long imported;
+        private final long rejected;
+        private final long elapsedMillis;
+
+        Result(long read, long imported, long rejected, long elapsedMillis) {
+            this.read = read;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getRead() { return read; }
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public double rowsPerSecond() { return elapsedMillis > 0 ? read * 1000.0 / elapsedMillis : read; }
+
+        @Override
+        public String toString() {
+            return String.format("read %d, imported %d, rejected %d in %d ms (%.0f rows/s)",
+                    read, imported, rejected, elapsedMillis, rowsPerSecond());
+        }
+    }
+
+    // Outcome of parsing one row: either the entity or the reason it was rejected
+    private static class Row<T> {
+        final long number;
+        final String record;
+        T value;
+        String error;
+
+        Row(long number, String record) {
+            this.number = number;
+            this.record = record;
+        }
+    }
+
+    private final DataStore store;
+    private ProgressListener listener = (read, imported, rejected) -> { };
+
+    public BulkImporter(DataStore store) {
+        this.store = store;
+    }
+
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    public Result importCustomers(String inputFile, String errorFile) throws IOException {
+        return run(inputFile, errorFile, BulkImporter::parseCustomer, this::insertCustomers);
+    }
+
+    public Result importLoans(String inputFile, String errorFile) throws IOException {
+        return run(inputFile, errorFile, BulkImporter::parseLoan, this::insertLoans);
+    }
+
+    // Payment history: rows are recorded as-is, the imported loan balances already reflect them
+    public Result importPayments(String inputFile, String errorFile) throws IOException {
+        return run(inputFile, errorFile, BulkImporter::parsePayment, rows -> store.addPayments(checkPayments(rows)));
+    }
+
+    // New payments (e.g. a collection agent's upload): each one is applied to its loan's balance
+    public Result postPayments(String inputFile, String errorFile) throws IOException {
+        return run(inputFile, errorFile, BulkImporter::parsePayment, rows -> {
+            List<Payment> good = checkPayments(rows);
+            store.recordPayments(good);
+            return good.size();
+        });
+    }
+
+    private interface Inserter<T> {
+        // Inserts the valid rows of a batch, marking any it refuses with an error; returns rows inserted
+        long insert(List<Row<T>> rows);
+    }
+
+    private <T> Result run(String inputFile, String errorFile, Function<String, T> parser,
+                           Inserter<T> inserter) throws IOException {
+        long start = System.currentTimeMillis();
+        long read = 0, imported = 0, rejected = 0;
+        try (BufferedReader in = new BufferedReader(new FileReader(inputFile), 1 << 16);
+             BufferedWriter errors = new BufferedWriter(new FileWriter(errorFile))) {
+            errors.write("Row,Reason,Record");
+            errors.newLine();
+            List<Row<T>> batch = new ArrayList<>(BATCH_SIZE);
+            String record;
+            boolean more = true;
+            while (more) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Import cancelled after " + imported + " rows were imported");
+                }
+                record = CsvLoader.readRecord(in);
+                if (record == null) {
+                    more = false;
+                } else {
+                    read++;
+                    if (!record.trim().isEmpty()) batch.add(new Row<>(read, record));
+                    if (batch.size() < BATCH_SIZE) continue;
+                }
+                if (batch.isEmpty()) continue;
+
+                parseAll(batch, parser);
+                imported += inserter.insert(batch);
+                for (Row<T> row : batch) {
+                    if (row.error == null) continue;
+                    rejected++;
+                    errors.write(row.number + "," + quote(row.error) + "," + quote(row.record));
+                    errors.newLine();
+                }
+                batch.clear();
+                listener.onProgress(read, imported, rejected);
+            }
+        }
+        store.sync().join();
+        return new Result(read, imported, rejected, System.currentTimeMillis() - start);
+    }
+
+    private static <T> void parseAll(List<Row<T>> batch, Function<String, T> parser) {
+        IntStream.range(0, batch.size()).parallel().forEach(i -> {
+            Row<T> row = batch.get(i);
+            try {
+                row.value = parser.apply(row.record);
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+            } catch (RuntimeException e) {
+                row.error = "unreadable row (" + e.getMessage() + ")";
+            }
+        });
+    }
+
+    // ---------------- parsing and stand-alone validation (runs in parallel) ----------------
+
+    private static void require(boolean ok, String reason) {
+        if (!ok) throw new IllegalArgumentException(reason);
+    }
+
+    private static Customer parseCustomer(String record) {
+        Customer c = Customer.fromCSV(record);
+        require(c != null, "expected 6 fields");
+        require(!c.getCustomerId().isEmpty(), "missing customer ID");
+        require(!c.getName().isEmpty(), "missing name");
+        require(Validator.isValidCNIC(c.getCnic()), "invalid CNIC");
+        require(Validator.isValidPhone(c.getPhoneNumber()), "invalid phone number");
+        require(Validator.isValidEmail(c.getEmail()), "invalid email");
+        return c;
+    }
+
+    private static Loan parseLoan(String record) {
+        Loan l = Loan.fromCSV(record);
+        require(l != null, "expected 12 fields and a PERSONAL, BUSINESS or EDUCATION loan type");
+        require(!l.getLoanId().isEmpty(), "missing loan ID");
+        require(l.getPrincipalMinor() > 0, "principal must be positive");
+        require(l.getDurationMonths() > 0, "duration must be positive");
+        require(l.getBalanceMinor() >= 0, "negative balance");
+        return l;
+    }
+
+    private static Payment parsePayment(String record) {
+        Payment p = Payment.fromCSV(record);
+        require(p != null, "expected 4 fields");
+        require(!p.getPaymentId().isEmpty(), "missing payment ID");
+        require(p.getAmountPaidMinor() > 0, "amount must be positive");
+        return p;
+    }
+
+    // ---------------- store-dependent checks and batched inserts ----------------
+
+    private long insertCustomers(List<Row<Customer>> rows) {
+        List<Customer> good = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (Row<Customer> row : rows) {
+            if (row.error != null) continue;
+            String id = row.value.getCustomerId();
+            if (store.findCustomerById(id) != null || !seen.add(id)) row.error = "duplicate customer ID " + id;
+            else good.add(row.value);
+        }
+        return store.addCustomers(good);
+    }
+
+    private long insertLoans(List<Row<Loan>> rows) {
+        List<Loan> good = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (Row<Loan> row : rows) {
+            if (row.error != null) continue;
+            Loan l = row.value;
+            if (store.findCustomerById(l.getCustomerId()) == null) row.error = "unknown customer " + l.getCustomerId();
+            else if (store.findLoanById(l.getLoanId()) != null || !seen.add(l.getLoanId())) row.error = "duplicate loan ID " + l.getLoanId();
+            else good.add(l);
+        }
+        return store.addLoans(good);
+    }
+
+    private List<Payment> checkPayments(List<Row<Payment>> rows) {
+        List<Payment> good = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (Row<Payment> row : rows) {
+            if (row.error != null) continue;
+            Payment p = row.value;
+            if (store.findLoanById(p.getLoanId()) == null) row.error = "unknown loan " + p.getLoanId();
+            else if (store.hasPayment(p.getPaymentId()) || !seen.add(p.getPaymentId())) row.error = "duplicate payment ID " + p.getPaymentId();
+            else good.add(p);
+        }
+        return good;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
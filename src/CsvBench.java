@@ -0,0 +1,174 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Compares row parsing through CsvCursor with the String.split(",") parsers the
+ * data files used to be read with. Both paths parse the same in-memory copy of
+ * each base file on one thread, so the timings are parse cost only; the
+ * parallel CsvLoader.load of the file is timed alongside for reference.
+ *
+ * Before timing, the cursor's number parsing is checked against
+ * Double.parseDouble and Integer.parseInt, including values off its fast path.
+ *
+ *   java CsvBench [dataDir] [rounds]
+ *
+ * Exit status is 0 on success and 1 when the two paths disagree.
+ */
+public class CsvBench {
+
+    public static void main(String[] args) throws IOException {
+        String dir = args.length > 0 ? args[0] : ".";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean ok = checkNumbers();
+        ok &= bench(Paths.get(dir, "loans.csv"), rounds, CsvBench::splitLoan, Loan::fromCSV,
+                l -> l.getLoanId().hashCode() + 31L * l.getBalanceMinor() + l.getIssueDate().toEpochDay());
+        ok &= bench(Paths.get(dir, "payments.csv"), rounds, CsvBench::splitPayment, Payment::fromCSV,
+                p -> p.getPaymentId().hashCode() + 31L * p.getAmountPaidMinor() + p.getDate().toEpochDay());
+        ok &= bench(Paths.get(dir, "customers.csv"), rounds, CsvBench::splitCustomer, Customer::fromCSV,
+                c -> c.getCustomerId().hashCode() + 31L * c.getName().hashCode());
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean checkNumbers() {
+        List<String> doubles = new ArrayList<>(List.of(
+                "0", "-0", "+1", "1.", ".5", "1234.5", "0.1", "123456789012345", "1234567890123456",
+                "0.000000000000000000000001", "0.00000000000000000000001", "1e5", "-2.5E-3",
+                "99999999999999.99", "0.30000000000000004"));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200_000; i++) {
+            doubles.add(Long.toString(random.nextLong(1_000_000_000_000L)) + "." + random.nextInt(1_000_000));
+            doubles.add(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(-30, 30))));
+        }
+        int bad = 0;
+        for (String s : doubles) {
+            double expected = Double.parseDouble(s);
+            double actual = CsvCursor.of(s).nextDouble();
+            if (Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual)) {
+                if (bad++ < 10) System.out.println("nextDouble(" + s + ") = " + actual + ", expected " + expected);
+            }
+        }
+        for (String s : new String[] {"0", "-7", "+42", "2147483647", "-2147483648", "123456789"}) {
+            if (CsvCursor.of(s).nextInt() != Integer.parseInt(s)) {
+                bad++;
+                System.out.println("nextInt(" + s + ") = " + CsvCursor.of(s).nextInt());
+            }
+        }
+        System.out.printf("Number check: %d values, %d mismatches%n", doubles.size() + 6, bad);
+        return bad == 0;
+    }
+
+    private static <T> boolean bench(Path file, int rounds, Function<String, T> split, Function<CsvCursor, T> cursor,
+                                     ToLong<T> fingerprint) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            System.out.println(file + ": missing or empty, skipped");
+            return true;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        long splitBest = Long.MAX_VALUE, cursorBest = Long.MAX_VALUE, loaderBest = Long.MAX_VALUE;
+        long splitSum = 0, cursorSum = 0;
+        int rows = 0, cursorRows = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            splitSum = 0;
+            rows = 0;
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes)))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    T row = split.apply(line);
+                    if (row == null) continue;
+                    splitSum += fingerprint.of(row);
+                    rows++;
+                }
+            }
+            splitBest = Math.min(splitBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            cursorSum = 0;
+            cursorRows = 0;
+            CsvCursor row = new CsvCursor();
+            for (int from = 0; from < bytes.length; ) {
+                int to = from;
+                while (to < bytes.length && bytes[to] != '\n') to++;
+                int end = to > from && bytes[to - 1] == '\r' ? to - 1 : to;
+                row.reset(bytes, from, end);
+                if (!row.isBlank()) {
+                    T parsed = cursor.apply(row);
+                    if (parsed != null) {
+                        cursorSum += fingerprint.of(parsed);
+                        cursorRows++;
+                    }
+                }
+                from = to + 1;
+            }
+            cursorBest = Math.min(cursorBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            CsvLoader.load(file.toString(), cursor);
+            loaderBest = Math.min(loaderBest, System.nanoTime() - start);
+        }
+        boolean same = rows == cursorRows && splitSum == cursorSum;
+        System.out.printf("%s: %d rows, best of %d%n", file.getFileName(), rows, rounds);
+        System.out.printf("  split(\",\")       %7d ms  %,12.0f rows/s%n", splitBest / 1_000_000, rows * 1e9 / splitBest);
+        System.out.printf("  CsvCursor        %7d ms  %,12.0f rows/s  (%.1fx)%n", cursorBest / 1_000_000,
+                rows * 1e9 / cursorBest, (double) splitBest / cursorBest);
+        System.out.printf("  CsvLoader.load   %7d ms  (parallel, includes file read)%n", loaderBest / 1_000_000);
+        if (!same) System.out.println("  MISMATCH: split path read " + rows + " rows, cursor path " + cursorRows);
+        return same;
+    }
+
+    private interface ToLong<T> {
+        long of(T row);
+    }
+
+    // ---------------- the split-based parsers, as they were ----------------
+
+    private static Loan splitLoan(String line) {
+        String[] p = line.split(",", -1);
+        if (p.length < 12) return null;
+        double principal = Double.parseDouble(p[3]);
+        int duration = Integer.parseInt(p[5]);
+        LocalDate issue = LocalDate.parse(p[7]);
+        boolean installment = Boolean.parseBoolean(p[10]);
+        Loan loan;
+        switch (p[0]) {
+            case "PERSONAL":
+                loan = new PersonalLoan(p[1], p[2], principal, duration, issue, installment);
+                break;
+            case "BUSINESS":
+                loan = new BusinessLoan(p[1], p[2], principal, duration, issue, installment);
+                break;
+            case "EDUCATION":
+                loan = new EducationLoan(p[1], p[2], principal, duration, issue, installment);
+                break;
+            default:
+                return null;
+        }
+        loan.balance = Money.of(Double.parseDouble(p[6]));
+        loan.status = p[9];
+        return loan;
+    }
+
+    private static Payment splitPayment(String line) {
+        String[] p = line.split(",", -1);
+        if (p.length < 4) return null;
+        return new Payment(p[0], p[1], Double.parseDouble(p[2]), LocalDate.parse(p[3]));
+    }
+
+    private static Customer splitCustomer(String line) {
+        String[] p = line.split(",", -1);
+        if (p.length < 6) return null;
+        return new Customer(unescape(p[0]), unescape(p[1]), unescape(p[2]), unescape(p[3]), unescape(p[4]), unescape(p[5]));
+    }
+
+    private static String unescape(String s) {
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
+            return s.substring(1, s.length() - 1).replace("\"\"", "\"");
+        }
+        return s;
+    }
+}
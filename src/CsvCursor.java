@@ -0,0 +1,223 @@
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+/**
+ * Reusable cursor over one CSV row held in a byte buffer. Fields are consumed
+ * left to right straight from the bytes: numbers and ISO dates are parsed
+ * without building intermediate Strings, and only text fields are decoded.
+ * One cursor is meant to be reset and reused for every row of a file.
+ *
+ * Fields follow RFC 4180: a field wrapped in double quotes may contain commas,
+ * line breaks and doubled ("") quotes.
+ */
+public final class CsvCursor {
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int DATE_CACHE_SIZE = 1024;
+    private static final ThreadLocal<CsvCursor> LINE_CURSOR = ThreadLocal.withInitial(CsvCursor::new);
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldEscaped;
+
+    // Direct-mapped cache of recently parsed dates, keyed by yyyymmdd
+    private final int[] dateKeys = new int[DATE_CACHE_SIZE];
+    private final LocalDate[] dateValues = new LocalDate[DATE_CACHE_SIZE];
+
+    /**
+     * Cursor over a single line, for callers that read line by line. The cursor
+     * (and its date cache) belongs to the calling thread and is reset by the next
+     * call to of on that thread, so it must not be kept past the current row.
+     */
+    public static CsvCursor of(String line) {
+        byte[] bytes = line.getBytes(CHARSET);
+        return LINE_CURSOR.get().reset(bytes, 0, bytes.length);
+    }
+
+    public CsvCursor reset(byte[] buf, int start, int end) {
+        this.buf = buf;
+        this.pos = start;
+        this.end = end;
+        return this;
+    }
+
+    public boolean isBlank() {
+        for (int i = pos; i < end; i++) {
+            if (buf[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    // Number of fields left in the row, including the one under the cursor
+    public int remainingFields() {
+        int n = 1;
+        boolean inQuotes = false;
+        for (int i = pos; i < end; i++) {
+            if (buf[i] == '"') inQuotes = !inQuotes;
+            else if (buf[i] == ',' && !inQuotes) n++;
+        }
+        return n;
+    }
+
+    private void advance() {
+        int i = pos;
+        fieldEscaped = false;
+        if (i < end && buf[i] == '"') {
+            fieldStart = ++i;
+            while (i < end) {
+                if (buf[i] == '"') {
+                    if (i + 1 < end && buf[i + 1] == '"') {
+                        fieldEscaped = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            fieldEnd = i;
+            while (i < end && buf[i] != ',') i++;
+        } else {
+            fieldStart = i;
+            while (i < end && buf[i] != ',') i++;
+            fieldEnd = i;
+        }
+        pos = i < end ? i + 1 : end;
+    }
+
+    public void skip() { advance(); }
+
+    public String nextString() {
+        advance();
+        String s = new String(buf, fieldStart, fieldEnd - fieldStart, CHARSET);
+        return fieldEscaped ? s.replace("\"\"", "\"") : s;
+    }
+
+    public boolean nextBoolean() {
+        advance();
+        int len = fieldEnd - fieldStart;
+        return len == 4
+                && (buf[fieldStart] | 0x20) == 't' && (buf[fieldStart + 1] | 0x20) == 'r'
+                && (buf[fieldStart + 2] | 0x20) == 'u' && (buf[fieldStart + 3] | 0x20) == 'e';
+    }
+
+    public int nextInt() {
+        advance();
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && buf[i] == '-';
+        if (negative || (i < fieldEnd && buf[i] == '+')) i++;
+        if (i == fieldEnd || fieldEnd - i > 9) return Integer.parseInt(fieldText());
+        int value = 0;
+        for (; i < fieldEnd; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) return Integer.parseInt(fieldText());
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Plain decimals ("1234.5") with up to 15 significant digits take the exact
+     * fast path: the digits form a long mantissa and one correctly rounded
+     * division by a power of ten gives the same double as Double.parseDouble.
+     * Anything else (exponents, very long fractions) falls back to it.
+     */
+    public double nextDouble() {
+        advance();
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && buf[i] == '-';
+        if (negative || (i < fieldEnd && buf[i] == '+')) i++;
+        long mantissa = 0;
+        int seen = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < fieldEnd; i++) {
+            byte b = buf[i];
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || digits >= 15) return Double.parseDouble(fieldText());
+            mantissa = mantissa * 10 + d;
+            seen++;
+            if (mantissa != 0) digits++;
+            if (fractionDigits >= 0) fractionDigits++;
+        }
+        // leading zeros in the fraction do not count towards digits, so the scale can outgrow POW10
+        if (seen == 0 || fractionDigits >= POW10.length) return Double.parseDouble(fieldText());
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : (double) mantissa;
+        return negative ? -value : value;
+    }
+
+    // Reads an amount straight into paisa; see Money.parse for the accepted forms
+    public long nextMoney() {
+        advance();
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && buf[i] == '-';
+        if (negative || (i < fieldEnd && buf[i] == '+')) i++;
+        long units = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        for (; i < fieldEnd; i++) {
+            byte b = buf[i];
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || fractionDigits >= 2 || digits >= 16) return Money.parse(fieldText());
+            digits++;
+            if (fractionDigits >= 0) {
+                fraction = fraction * 10 + d;
+                fractionDigits++;
+            } else {
+                units = units * 10 + d;
+            }
+        }
+        if (digits == 0) return Money.parse(fieldText());
+        if (fractionDigits == 1) fraction *= 10;
+        long minor = units * Money.SCALE + fraction;
+        return negative ? -minor : minor;
+    }
+
+    public LocalDate nextDate() {
+        advance();
+        int s = fieldStart;
+        if (fieldEnd - s != 10 || buf[s + 4] != '-' || buf[s + 7] != '-') return LocalDate.parse(fieldText());
+        int year = digits(s, 4);
+        int month = digits(s + 5, 2);
+        int day = digits(s + 8, 2);
+        if (year < 0 || month < 0 || day < 0) return LocalDate.parse(fieldText());
+
+        int key = year * 10000 + month * 100 + day;
+        int slot = (key ^ (key >>> 7)) & (DATE_CACHE_SIZE - 1);
+        LocalDate cached = dateValues[slot];
+        if (cached != null && dateKeys[slot] == key) return cached;
+        LocalDate date = LocalDate.of(year, month, day);
+        dateKeys[slot] = key;
+        dateValues[slot] = date;
+        return date;
+    }
+
+    private int digits(int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private String fieldText() {
+        return new String(buf, fieldStart, fieldEnd - fieldStart, CHARSET);
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Parallel CSV loader. A file is cut into newline-aligned byte ranges which are
+ * parsed independently on the fork-join pool, each task walking its rows with
+ * its own reusable {@link CsvCursor}; the per-range results are then
+ * concatenated in file order.
+ *
+ * Quoted fields may span lines, so a range boundary is only a record boundary
+ * if an even number of quotes precedes it. Each task counts the quotes in its
+ * range; if any boundary turns out to sit inside a quoted field the file is
+ * simply re-parsed as one range.
+ */
+public class CsvLoader {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    public static <T> List<T> load(String file, Function<CsvCursor, T> parser) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long[] bounds = splitRanges(ch);
+            int n = bounds.length - 1;
+            List<List<T>> parts = new ArrayList<>(Collections.nCopies(n, null));
+            long[] quotes = new long[n];
+            parse(new ParseTask<>(ch, bounds, 0, n, parser, parts, quotes));
+
+            long quotesBefore = 0;
+            for (int i = 1; i < n; i++) {
+                quotesBefore += quotes[i - 1];
+                if ((quotesBefore & 1) != 0) {
+                    bounds = new long[] {0, bounds[n]};
+                    parts = new ArrayList<>(Collections.singletonList(null));
+                    parse(new ParseTask<>(ch, bounds, 0, 1, parser, parts, new long[1]));
+                    break;
+                }
+            }
+            int total = 0;
+            for (List<T> part : parts) total += part.size();
+            List<T> result = new ArrayList<>(total);
+            for (List<T> part : parts) result.addAll(part);
+            return result;
+        }
+    }
+
+    // Reads up to the next line break outside a quoted field, keeping breaks inside quotes intact
+    public static String readRecord(BufferedReader br) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        boolean inQuotes = false;
+        int ch;
+        while ((ch = br.read()) != -1) {
+            if (ch == '"') inQuotes = !inQuotes;
+            if (ch == '\n' && !inQuotes) break;
+            sb.append((char) ch);
+        }
+        if (ch == -1 && sb.length() == 0) return null;
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    private static void parse(ParseTask<?> task) throws IOException {
+        try {
+            ForkJoinPool.commonPool().invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Range boundaries: bounds[i]..bounds[i + 1], each ending just after a newline (or at EOF)
+    private static long[] splitRanges(FileChannel ch) throws IOException {
+        long size = ch.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long pos = CHUNK_SIZE;
+        while (pos < size) {
+            long next = nextLineStart(ch, pos, size);
+            if (next >= size) break;
+            bounds.add(next);
+            pos = next + CHUNK_SIZE;
+        }
+        bounds.add(size);
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            buf.clear();
+            int read = ch.read(buf, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static byte[] readRange(FileChannel ch, long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            int read = ch.read(buf, start + buf.position());
+            if (read < 0) break;
+        }
+        return bytes;
+    }
+
+    private static class ParseTask<T> extends RecursiveAction {
+        private final FileChannel ch;
+        private final long[] bounds;
+        private final int from, to;
+        private final Function<CsvCursor, T> parser;
+        private final List<List<T>> parts;
+        private final long[] quotes;
+
+        ParseTask(FileChannel ch, long[] bounds, int from, int to, Function<CsvCursor, T> parser,
+                  List<List<T>> parts, long[] quotes) {
+            this.ch = ch;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+            this.parts = parts;
+            this.quotes = quotes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseTask<>(ch, bounds, from, mid, parser, parts, quotes),
+                        new ParseTask<>(ch, bounds, mid, to, parser, parts, quotes));
+                return;
+            }
+            try {
+                parts.set(from, parseRange(readRange(ch, bounds[from], bounds[from + 1])));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Splits the range into records at line breaks outside quoted fields
+        private List<T> parseRange(byte[] bytes) {
+            List<T> out = new ArrayList<>();
+            CsvCursor row = new CsvCursor();
+            boolean inQuotes = false;
+            long quoteCount = 0;
+            int recordStart = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i < bytes.length) {
+                    byte b = bytes[i];
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                        quoteCount++;
+                    }
+                    if (b != '\n' || inQuotes) continue;
+                }
+                int recordEnd = i;
+                if (recordEnd > recordStart && bytes[recordEnd - 1] == '\r') recordEnd--;
+                if (recordEnd > recordStart && !row.reset(bytes, recordStart, recordEnd).isBlank()) {
+                    T item = parser.apply(row);
+                    if (item != null) out.add(item);
+                }
+                recordStart = i + 1;
+            }
+            quotes[from] = quoteCount;
+            return out;
+        }
+    }
+}
@@ -41,35 +41,28 @@ public class Customer {
         );
     }
 
-    public static Customer fromCSV(String line) {
-        String[] parts = line.split(",", -1);
-        if (parts.length < 6) return null;
+    public static Customer fromCSV(String line) { return fromCSV(CsvCursor.of(line)); }
+
+    public static Customer fromCSV(CsvCursor row) {
+        if (row.remainingFields() < 6) return null;
         return new Customer(
-                unescapeCSV(parts[0]),
-                unescapeCSV(parts[1]),
-                unescapeCSV(parts[2]),
-                unescapeCSV(parts[3]),
-                unescapeCSV(parts[4]),
-                unescapeCSV(parts[5])
+                row.nextString(),
+                row.nextString(),
+                row.nextString(),
+                row.nextString(),
+                row.nextString(),
+                row.nextString()
         );
     }
 
     private String escapeCSV(String s) {
         if (s == null) return "";
-        if (s.contains(",") || s.contains("\"")) {
+        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
             return "\"" + s.replace("\"", "\"\"") + "\"";
         }
         return s;
     }
 
-    private static String unescapeCSV(String s) {
-        if (s == null || s.isEmpty()) return "";
-        if (s.startsWith("\"") && s.endsWith("\"")) {
-            return s.substring(1, s.length() - 1).replace("\"\"", "\"");
-        }
-        return s;
-    }
-
     @Override
     public String toString() {
         return String.format("%s — %s (%s)", customerId, name, phoneNumber);
@@ -1,23 +1,83 @@
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class DataStore {
     private static final String CUSTOMERS_FILE = "customers.csv";
     private static final String LOANS_FILE = "loans.csv";
     private static final String PAYMENTS_FILE = "payments.csv";
-
-    private List<Customer> customers = new ArrayList<>();
-    private Map<String, Customer> customerMap = new HashMap<>();
-
-    private List<Loan> loans = new ArrayList<>();
-    private Map<String, Loan> loanMap = new HashMap<>();
-
-    private List<Payment> payments = new ArrayList<>();
+    private static final String JOURNAL_FILE = "journal.csv";
+    private static final String JOURNAL_PREV_FILE = "journal.prev.csv";
+    private static final String INTEREST_LEDGER_FILE = "interest_ledger.csv";
+
+    // Journal size at which a background snapshot folds it back into the base files
+    private static final int COMPACT_THRESHOLD = 10_000;
+
+    // Stripes guarding loan state; a power of two
+    private static final int LOCK_STRIPES = 256;
+
+    private final SnapshotList<Customer> customers = new SnapshotList<>();
+    private final Map<String, Customer> customerMap = new ConcurrentHashMap<>();
+
+    private final SnapshotList<Loan> loans = new SnapshotList<>();
+    private final Map<String, Loan> loanMap = new ConcurrentHashMap<>();
+    private final Map<String, List<Loan>> loansByCustomer = new ConcurrentHashMap<>();
+
+    // Open (ACTIVE) loans ordered by due date, so an overdue sweep only visits loans that fell due
+    private final TreeMap<LocalDate, Set<Loan>> openLoansByDueDate = new TreeMap<>();
+    private final Set<Loan> overdueLoans = new LinkedHashSet<>();
+
+    // Columnar mirror of the loan book with running portfolio totals, kept in step with every change
+    private volatile LoanColumns loanColumns = new LoanColumns(List.of());
+    private volatile PenaltyPolicy penaltyPolicy = new PenaltyPolicy();
+    private volatile InterestLedger interestLedger = new InterestLedger();
+
+    private final SnapshotList<Payment> payments = new SnapshotList<>();
+    private final Set<String> paymentIds = ConcurrentHashMap.newKeySet();
+    // Payments posted since the last publish; moved into payments when a view is next taken
+    private final Queue<Payment> unpublishedPayments = new ConcurrentLinkedQueue<>();
+
+    // Per-loan payment index with running totals, maintained as payments are added
+    private final Map<String, List<Payment>> paymentsByLoan = new ConcurrentHashMap<>();
+    private final Map<String, Long> totalPaidByLoan = new ConcurrentHashMap<>(); // paisa
+    private final Map<String, LocalDate> lastPaymentDateByLoan = new ConcurrentHashMap<>();
+
+    /*
+     * Locking. A loan's state (balance, status, penalty) and its payment index
+     * entries are guarded by the stripe of its loan ID, so payments on different
+     * loans post in parallel. indexLock guards the shared lists, the status
+     * indexes and the loan columns and is only held for short updates; a posted
+     * payment does not take it, it is queued for the next publish. A thread
+     * that needs both takes its stripes first. Journal records are appended while
+     * the guarding lock is held, so replay sees each loan's changes in order.
+     */
+    private final ReentrantLock[] loanLocks = new ReentrantLock[LOCK_STRIPES];
+    private final Object indexLock = new Object();
+
+    // Latest published version of the three lists; replaced under indexLock after a change is made or read
+    private volatile Snapshot snapshot = new Snapshot(0, List.of(), List.of(), List.of());
+
+    private final List<StoreEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private Journal journal = new Journal(JOURNAL_FILE, JOURNAL_PREV_FILE);
+
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "datastore-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+    private CompletableFuture<Void> snapshotInFlight;
+    private volatile boolean closing;
 
     public DataStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) loanLocks[i] = new ReentrantLock();
         ensureFilesExist();
         loadAll();
     }
@@ -32,27 +92,148 @@ public class DataStore {
         }
     }
 
-    public List<Customer> getCustomers() { return new ArrayList<>(customers); }
-    public List<Loan> getLoans() { return new ArrayList<>(loans); }
-    public List<Payment> getPayments() { return new ArrayList<>(payments); }
+    /**
+     * Immutable point-in-time view of the customer, loan and payment lists.
+     * Taking one is free: the lists share their storage with the live store (see
+     * SnapshotList), and a new version is published after every change (payments
+     * in bulk, when a view is next taken), so a report can iterate a stable view
+     * while payments keep flowing. The entities
+     * in a snapshot are the live objects, so a loan's balance and status read
+     * through it are current, not frozen at the snapshot's version.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<Customer> customers;
+        private final List<Loan> loans;
+        private final List<Payment> payments;
+
+        Snapshot(long version, List<Customer> customers, List<Loan> loans, List<Payment> payments) {
+            this.version = version;
+            this.customers = customers;
+            this.loans = loans;
+            this.payments = payments;
+        }
+
+        public long getVersion() { return version; }
+        public List<Customer> getCustomers() { return customers; }
+        public List<Loan> getLoans() { return loans; }
+        public List<Payment> getPayments() { return payments; }
+    }
+
+    // Includes every payment posted before the call
+    public Snapshot snapshot() {
+        if (!unpublishedPayments.isEmpty()) {
+            synchronized (indexLock) { publish(); }
+        }
+        return snapshot;
+    }
+
+    // The lists returned are immutable views of the latest snapshot
+    public List<Customer> getCustomers() { return snapshot().getCustomers(); }
+    public List<Loan> getLoans() { return snapshot().getLoans(); }
+    public List<Payment> getPayments() { return snapshot().getPayments(); }
+    public int getCustomerCount() { return snapshot().getCustomers().size(); }
+    public int getLoanCount() { return snapshot().getLoans().size(); }
+    public int getPaymentCount() { return snapshot().getPayments().size(); }
+
+    public void addListener(StoreEvent.Listener l) { listeners.add(l); }
+    public void removeListener(StoreEvent.Listener l) { listeners.remove(l); }
+
+    // Batch operations only build events when someone is listening
+    private boolean listening() { return !listeners.isEmpty(); }
+
+    // Called with no locks held
+    private void fire(StoreEvent e) {
+        for (StoreEvent.Listener l : listeners) l.onChange(e);
+    }
+
+    private void fire(List<StoreEvent> events) {
+        for (StoreEvent e : events) fire(e);
+    }
+
+    // Caller holds indexLock
+    private void publish() {
+        for (Payment p; (p = unpublishedPayments.poll()) != null; ) payments.add(p);
+        snapshot = new Snapshot(snapshot.version + 1, customers.view(), loans.view(), payments.view());
+    }
+
+    // Lock guarding the state of one loan, for jobs that change loans outside DataStore
+    ReentrantLock loanLock(String loanId) {
+        int h = loanId.hashCode();
+        return loanLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    // Locks the stripes of all the given loans in stripe order, so overlapping batches cannot deadlock
+    private List<ReentrantLock> lockLoans(Collection<String> loanIds) {
+        Set<ReentrantLock> needed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String id : loanIds) needed.add(loanLock(id));
+        List<ReentrantLock> held = new ArrayList<>(needed.size());
+        for (ReentrantLock lock : loanLocks) {
+            if (!needed.contains(lock)) continue;
+            lock.lock();
+            held.add(lock);
+        }
+        return held;
+    }
+
+    private static void unlockAll(List<ReentrantLock> held) {
+        for (ReentrantLock lock : held) lock.unlock();
+    }
+
+    private static List<String> loanIds(Collection<Loan> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Loan l : batch) ids.add(l.getLoanId());
+        return ids;
+    }
 
     public boolean addCustomer(Customer c) {
-        if (c.getName().isEmpty() || c.getCnic().isEmpty() || c.getPhoneNumber().isEmpty() ||
-                !Validator.isValidCNIC(c.getCnic()) || !Validator.isValidPhone(c.getPhoneNumber()) ||
-                !Validator.isValidEmail(c.getEmail())) {
+        if (!Validator.isValidCustomer(c)) {
             return false;
         }
-        customers.add(c);
-        customerMap.put(c.getCustomerId(), c);
-        appendLine(CUSTOMERS_FILE, c.toCSV());
+        synchronized (indexLock) {
+            customers.add(c);
+            customerMap.put(c.getCustomerId(), c);
+            publish();
+            writeJournal(Journal.record(Journal.CUSTOMER, c.toCSV()));
+        }
+        fire(StoreEvent.customer(StoreEvent.Type.CUSTOMER_ADDED, c));
         return true;
     }
 
+    /**
+     * Adds already-validated customers with a single journal append. IDs that
+     * already exist are skipped; returns the number added.
+     */
+    public int addCustomers(Collection<Customer> batch) {
+        List<String> records = new ArrayList<>(batch.size());
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        synchronized (indexLock) {
+            for (Customer c : batch) {
+                if (customerMap.putIfAbsent(c.getCustomerId(), c) != null) continue;
+                customers.add(c);
+                records.add(Journal.record(Journal.CUSTOMER, c.toCSV()));
+                if (notify) events.add(StoreEvent.customer(StoreEvent.Type.CUSTOMER_ADDED, c));
+            }
+            if (records.isEmpty()) return 0;
+            publish();
+            writeJournal(records.toArray(new String[0]));
+        }
+        fire(events);
+        return records.size();
+    }
+
     public boolean deleteCustomer(String id) {
-        Customer c = customerMap.remove(id);
-        if (c == null) return false;
-        customers.remove(c);
-        rewriteCustomersFile();
+        Customer c;
+        synchronized (indexLock) {
+            c = customerMap.remove(id);
+            if (c == null) return false;
+            customers.remove(c);
+            loansByCustomer.remove(id);
+            publish();
+            writeJournal(Journal.record(Journal.CUSTOMER_DELETE, id));
+        }
+        fire(StoreEvent.customer(StoreEvent.Type.CUSTOMER_DELETED, c));
         return true;
     }
 
@@ -66,58 +247,374 @@ public class DataStore {
             return false;
         }
 
-        c.setName(newName);
-        c.setCnic(newCnic);
-        c.setEmail(newEmail);
-        c.setAddress(newAddress);
-        c.setPhoneNumber(newPhone);
+        synchronized (indexLock) {
+            c.setName(newName);
+            c.setCnic(newCnic);
+            c.setEmail(newEmail);
+            c.setAddress(newAddress);
+            c.setPhoneNumber(newPhone);
 
-        rewriteCustomersFile();
+            writeJournal(Journal.record(Journal.CUSTOMER, c.toCSV()));
+        }
+        fire(StoreEvent.customer(StoreEvent.Type.CUSTOMER_EDITED, c));
         return true;
     }
 
-    public void addLoan(Loan l) {
-        loans.add(l);
-        loanMap.put(l.getLoanId(), l);
-        appendLine(LOANS_FILE, l.toCSV());
+    // Returns false, changing nothing, if a loan with the same ID exists
+    public boolean addLoan(Loan l) {
+        String record = Journal.record(Journal.LOAN, l.toCSV());
+        synchronized (indexLock) {
+            if (loanMap.containsKey(l.getLoanId())) return false;
+            indexLoan(l);
+            publish();
+            writeJournal(record);
+        }
+        fire(StoreEvent.loanIssued(l));
+        return true;
+    }
+
+    // Adds issued loans with a single journal append; IDs that already exist are skipped
+    public int addLoans(Collection<Loan> batch) {
+        List<String> records = new ArrayList<>(batch.size());
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        synchronized (indexLock) {
+            for (Loan l : batch) {
+                if (loanMap.containsKey(l.getLoanId())) continue;
+                records.add(Journal.record(Journal.LOAN, l.toCSV()));
+                indexLoan(l);
+                if (notify) events.add(StoreEvent.loanIssued(l));
+            }
+            if (records.isEmpty()) return 0;
+            publish();
+            writeJournal(records.toArray(new String[0]));
+        }
+        fire(events);
+        return records.size();
     }
 
-    public void addPayment(Payment p) {
-        payments.add(p);
-        appendLine(PAYMENTS_FILE, p.toCSV());
+    /**
+     * Adds historical payments with a single journal append. Only the payment
+     * records and indexes change: the loans' balances are taken to include them
+     * already, as in the payments data file. IDs already posted are skipped;
+     * returns the number added.
+     */
+    public int addPayments(Collection<Payment> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Payment p : batch) ids.add(p.getLoanId());
+        List<String> records = new ArrayList<>(batch.size());
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        List<ReentrantLock> held = lockLoans(ids);
+        try {
+            for (Payment p : batch) {
+                if (!indexPayment(p)) continue;
+                records.add(Journal.record(Journal.PAYMENT, p.toCSV()));
+                if (notify) events.add(StoreEvent.paymentApplied(p, loanMap.get(p.getLoanId())));
+            }
+            if (!records.isEmpty()) writeJournal(records.toArray(new String[0]));
+        } finally {
+            unlockAll(held);
+        }
+        fire(events);
+        return records.size();
     }
 
-    public void recordPaymentAndUpdateLoan(Payment p) {
-        addPayment(p);
+    // Returns false, changing nothing, if a payment with the same ID was already posted
+    public boolean addPayment(Payment p) {
+        ReentrantLock lock = loanLock(p.getLoanId());
+        lock.lock();
+        try {
+            if (!indexPayment(p)) return false;
+            writeJournal(Journal.record(Journal.PAYMENT, p.toCSV()));
+        } finally {
+            lock.unlock();
+        }
+        fire(StoreEvent.paymentApplied(p, loanMap.get(p.getLoanId())));
+        return true;
+    }
+
+    // Returns false, leaving the loan untouched, if a payment with the same ID was already posted
+    public boolean recordPaymentAndUpdateLoan(Payment p) {
         Loan loan = loanMap.get(p.getLoanId());
-        if (loan != null) {
-            loan.makePayment(p.getAmountPaid());
+        if (loan == null) return addPayment(p);
+        ReentrantLock lock = loanLock(loan.getLoanId());
+        String before;
+        String after;
+        lock.lock();
+        try {
+            if (!indexPayment(p)) return false;
+            before = loan.getStatus();
+            loan.makePayment(p.getAmountPaidMinor());
             loan.checkOverdue(LocalDate.now());
-            rewriteLoansFile();
-            rewritePaymentsFile();
+            after = loan.getStatus();
+            loanChanged(loan, before);
+            writeJournal(Journal.record(Journal.PAYMENT, p.toCSV()),
+                    Journal.record(Journal.LOAN, loan.toCSV()));
+        } finally {
+            lock.unlock();
         }
+        fire(StoreEvent.paymentApplied(p, loan));
+        if (!before.equals(after)) fire(StoreEvent.statusChanged(loan, before));
+        return true;
+    }
+
+    /**
+     * Posts a batch of payments (e.g. a collection agent's daily upload). Every
+     * loan ID is checked first; if any is unknown nothing is applied and false is
+     * returned. Otherwise the payments are applied in memory and persisted with a
+     * single journal append holding each payment plus the final state of every
+     * loan they touched. Payments whose ID was already posted are skipped.
+     */
+    public boolean recordPayments(Collection<Payment> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Payment p : batch) {
+            if (!loanMap.containsKey(p.getLoanId())) return false;
+            ids.add(p.getLoanId());
+        }
+        LocalDate today = LocalDate.now();
+        Map<Loan, String> touched = new LinkedHashMap<>(); // loan -> status before the batch
+        List<String> records = new ArrayList<>(batch.size() + 16);
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        List<ReentrantLock> held = lockLoans(ids);
+        try {
+            for (Payment p : batch) {
+                if (!indexPayment(p)) continue;
+                Loan loan = loanMap.get(p.getLoanId());
+                touched.putIfAbsent(loan, loan.getStatus());
+                loan.makePayment(p.getAmountPaidMinor());
+                loan.checkOverdue(today);
+                records.add(Journal.record(Journal.PAYMENT, p.toCSV()));
+                if (notify) events.add(StoreEvent.paymentApplied(p, loan));
+            }
+            for (Map.Entry<Loan, String> e : touched.entrySet()) {
+                Loan loan = e.getKey();
+                loanChanged(loan, e.getValue());
+                records.add(Journal.record(Journal.LOAN, loan.toCSV()));
+                if (notify && !e.getValue().equals(loan.getStatus())) events.add(StoreEvent.statusChanged(loan, e.getValue()));
+            }
+            if (!records.isEmpty()) writeJournal(records.toArray(new String[0]));
+        } finally {
+            unlockAll(held);
+        }
+        fire(events);
+        return true;
+    }
+
+    // Caller holds indexLock
+    private void indexLoan(Loan l) {
+        loans.add(l);
+        loanMap.put(l.getLoanId(), l);
+        loansByCustomer.computeIfAbsent(l.getCustomerId(), k -> Collections.synchronizedList(new ArrayList<>())).add(l);
+        loanColumns.add(l);
+        trackLoanStatus(l);
+    }
+
+    // Files a loan under the due-date index or the overdue set according to its current status; caller holds indexLock
+    private void trackLoanStatus(Loan l) {
+        loanColumns.update(l);
+
+        Set<Loan> bucket = openLoansByDueDate.get(l.getDueDate());
+        if (bucket != null && bucket.remove(l) && bucket.isEmpty()) openLoansByDueDate.remove(l.getDueDate());
+        overdueLoans.remove(l);
+
+        if ("OVERDUE".equals(l.getStatus())) {
+            overdueLoans.add(l);
+        } else if (!"CLOSED".equals(l.getStatus())) {
+            openLoansByDueDate.computeIfAbsent(l.getDueDate(), k -> new LinkedHashSet<>()).add(l);
+        }
+    }
+
+    // Brings the shared indexes in line with a loan changed under its stripe; only takes indexLock if the status moved
+    private void loanChanged(Loan l, String statusBefore) {
+        if (statusBefore.equals(l.getStatus())) {
+            loanColumns.update(l);
+            return;
+        }
+        synchronized (indexLock) { trackLoanStatus(l); }
+    }
+
+    /**
+     * Marks open loans that fell due before {@code today} as overdue and journals
+     * them. Only the loans whose due date passed since the last sweep are visited.
+     * Returns the loans that became overdue in this sweep.
+     */
+    public List<Loan> sweepOverdue(LocalDate today) {
+        List<Loan> due = new ArrayList<>();
+        synchronized (indexLock) {
+            for (Set<Loan> bucket : openLoansByDueDate.headMap(today).values()) due.addAll(bucket);
+        }
+        List<Loan> newlyOverdue = new ArrayList<>();
+        List<Loan> stale = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        List<ReentrantLock> held = lockLoans(loanIds(due));
+        try {
+            for (Loan l : due) {
+                String before = l.getStatus();
+                l.checkOverdue(today);
+                if (before.equals(l.getStatus())) {
+                    // status moved elsewhere (e.g. EndOfDayJob) and is already journaled; only re-file it
+                    stale.add(l);
+                    continue;
+                }
+                if (!"OVERDUE".equals(l.getStatus())) continue;
+                loanChanged(l, before);
+                newlyOverdue.add(l);
+                records.add(Journal.record(Journal.LOAN, l.toCSV()));
+                if (notify) events.add(StoreEvent.statusChanged(l, before));
+            }
+            if (!stale.isEmpty()) {
+                synchronized (indexLock) {
+                    for (Loan l : stale) trackLoanStatus(l);
+                }
+            }
+            if (!records.isEmpty()) writeJournal(records.toArray(new String[0]));
+        } finally {
+            unlockAll(held);
+        }
+        fire(events);
+        return newlyOverdue;
+    }
+
+    /*
+     * Re-indexes loans whose status was changed outside DataStore and journals
+     * them in one append. The previous status is not known here, so the events
+     * carry null for it.
+     */
+    public void updateLoans(Collection<Loan> changed) {
+        if (changed.isEmpty()) return;
+        List<String> records = new ArrayList<>(changed.size());
+        List<ReentrantLock> held = lockLoans(loanIds(changed));
+        try {
+            synchronized (indexLock) {
+                for (Loan l : changed) trackLoanStatus(l);
+            }
+            for (Loan l : changed) records.add(Journal.record(Journal.LOAN, l.toCSV()));
+            writeJournal(records.toArray(new String[0]));
+        } finally {
+            unlockAll(held);
+        }
+        if (!listening()) return;
+        for (Loan l : changed) fire(StoreEvent.statusChanged(l, null));
+    }
+
+    public PenaltyPolicy getPenaltyPolicy() { return penaltyPolicy; }
+    public void setPenaltyPolicy(PenaltyPolicy policy) { this.penaltyPolicy = policy; }
+
+    /**
+     * Charges late-payment penalties up to {@code through} on every overdue loan.
+     * Each loan picks up from the last day it was charged for, so a daily run only
+     * visits the overdue set and adds one day per loan. Returns the total charged.
+     */
+    public long accruePenalties(LocalDate through) {
+        List<Loan> overdue = getOverdueLoans();
+        PenaltyPolicy policy = penaltyPolicy;
+        long total = 0;
+        List<String> records = new ArrayList<>();
+        List<StoreEvent> events = new ArrayList<>();
+        boolean notify = listening();
+        List<ReentrantLock> held = lockLoans(loanIds(overdue));
+        try {
+            for (Loan l : overdue) {
+                long charged = l.accruePenalty(through, policy.ruleFor(l.getLoanType()));
+                if (charged == 0) continue;
+                total += charged;
+                records.add(Journal.record(Journal.LOAN, l.toCSV()));
+                if (notify) events.add(StoreEvent.loanUpdated(l));
+            }
+            if (!records.isEmpty()) writeJournal(records.toArray(new String[0]));
+        } finally {
+            unlockAll(held);
+        }
+        fire(events);
+        return total;
+    }
+
+    public InterestLedger getInterestLedger() { return interestLedger; }
+
+    /**
+     * Posts every loan's interest earned up to {@code through} to the interest
+     * ledger and saves the ledger if anything was posted. Loans already posted for
+     * that day post nothing, so calling this before each report is cheap.
+     * Returns the total posted.
+     */
+    public long postInterestAccruals(LocalDate through) {
+        List<Loan> book = getLoans();
+        InterestLedger ledger = interestLedger;
+        synchronized (ledger) {
+            long total = 0;
+            int posted = 0;
+            for (Loan l : book) {
+                long amount = ledger.post(l, through);
+                if (amount == 0) continue;
+                total += amount;
+                posted++;
+            }
+            if (posted > 0) {
+                try {
+                    ledger.save(INTEREST_LEDGER_FILE);
+                } catch (IOException e) {
+                    System.err.println("Error writing to " + INTEREST_LEDGER_FILE + ": " + e.getMessage());
+                }
+            }
+            return total;
+        }
+    }
+
+    public List<Loan> getOverdueLoans() {
+        synchronized (indexLock) { return new ArrayList<>(overdueLoans); }
+    }
+
+    // Columnar loan book; its portfolio totals are maintained incrementally and cost O(1) to read
+    public LoanColumns getLoanColumns() { return loanColumns; }
+
+    // Caller holds the stripe of the payment's loan
+    private boolean indexPayment(Payment p) {
+        if (!paymentIds.add(p.getPaymentId())) return false;
+        indexPaymentRow(p);
+        return true;
+    }
+
+    private void indexPaymentRow(Payment p) {
+        unpublishedPayments.add(p);
+        indexByLoan(p);
+    }
+
+    private void indexByLoan(Payment p) {
+        String loanId = p.getLoanId();
+        paymentsByLoan.computeIfAbsent(loanId, k -> Collections.synchronizedList(new ArrayList<>())).add(p);
+        totalPaidByLoan.merge(loanId, p.getAmountPaidMinor(), Long::sum);
+        LocalDate last = lastPaymentDateByLoan.get(loanId);
+        if (last == null || p.getDate().isAfter(last)) lastPaymentDateByLoan.put(loanId, p.getDate());
     }
 
     public Customer findCustomerById(String id) { return customerMap.get(id); }
     public Loan findLoanById(String id) { return loanMap.get(id); }
+    public boolean hasPayment(String paymentId) { return paymentIds.contains(paymentId); }
+
+    public List<Loan> getLoansForCustomer(String customerId) {
+        List<Loan> list = loansByCustomer.get(customerId);
+        return list != null ? new ArrayList<>(list) : new ArrayList<>();
+    }
 
     public List<Payment> getPaymentsForLoan(String loanId) {
-        return payments.stream()
-                .filter(p -> p.getLoanId().equals(loanId))
-                .collect(Collectors.toList());
+        List<Payment> list = paymentsByLoan.get(loanId);
+        return list != null ? new ArrayList<>(list) : new ArrayList<>();
     }
 
     public double getTotalPaidForLoan(String loanId) {
-        return getPaymentsForLoan(loanId).stream()
-                .mapToDouble(Payment::getAmountPaid)
-                .sum();
+        return Money.toDouble(getTotalPaidMinorForLoan(loanId));
+    }
+
+    public long getTotalPaidMinorForLoan(String loanId) {
+        return totalPaidByLoan.getOrDefault(loanId, 0L);
     }
 
     public LocalDate getLastPaymentDateForLoan(String loanId) {
-        return getPaymentsForLoan(loanId).stream()
-                .map(Payment::getDate)
-                .max(LocalDate::compareTo)
-                .orElse(null);
+        return lastPaymentDateByLoan.get(loanId);
     }
 
     public boolean isInstallmentLoan(String loanId) {
@@ -130,95 +627,229 @@ public class DataStore {
         return l != null ? l.getEmi() : 0.0;
     }
 
-    private void appendLine(String file, String line) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
-            bw.write(line);
-            bw.newLine();
-        } catch (IOException e) {
-            System.err.println("Error writing to " + file + ": " + e.getMessage());
+    private CompletableFuture<Void> writeJournal(String... records) {
+        CompletableFuture<Void> written = journal.append(records);
+        // started from the snapshot thread: callers may hold locks that compact() needs; a closed
+        // store keeps journaling and leaves compaction to the next open
+        if (!closing && journal.getRecordCount() >= COMPACT_THRESHOLD && compactionRequested.compareAndSet(false, true)) {
+            try {
+                snapshotExecutor.execute(this::compact);
+            } catch (RejectedExecutionException e) {
+                compactionRequested.set(false);
+            }
+        }
+        return written;
+    }
+
+    // Completes once every mutation made so far has been forced to disk
+    public CompletableFuture<Void> sync() { return journal.sync(); }
+
+    // Waits for a running snapshot, then flushes pending journal records and stops the writer thread
+    public void close() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            closing = true;
+            pending = snapshotInFlight;
         }
+        if (pending != null) pending.join();
+        journal.close();
+        snapshotExecutor.shutdown();
     }
 
-    private void rewriteLoansFile() { writeAllLines(LOANS_FILE, loansToCSV()); }
-    private void rewritePaymentsFile() { writeAllLines(PAYMENTS_FILE, paymentsToCSV()); }
-    private void rewriteCustomersFile() { writeAllLines(CUSTOMERS_FILE, customersToCSV()); }
+    /**
+     * Starts a background snapshot of the current customers, loans and payments.
+     * Only the list references are copied on the caller's thread; the base files
+     * are written on the snapshot thread and swapped in atomically. Records
+     * journaled meanwhile land in the fresh delta journal, and since every record
+     * replays idempotently it does not matter whether the snapshot saw them.
+     */
+    public synchronized CompletableFuture<Void> compact() {
+        compactionRequested.set(false);
+        if (closing) return CompletableFuture.completedFuture(null);
+        if (snapshotInFlight != null && !snapshotInFlight.isDone()) return snapshotInFlight;
+        try {
+            journal.rotate();
+        } catch (IOException e) {
+            System.err.println("Error rotating journal: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Customer> customerView = getCustomers();
+        List<Loan> loanView = getLoans();
+        List<Payment> paymentView = getPayments();
+        snapshotInFlight = CompletableFuture.runAsync(() -> {
+            boolean ok = writeAtomically(CUSTOMERS_FILE, customerView, Customer::toCSV)
+                    & writeAtomically(LOANS_FILE, loanView, Loan::toCSV)
+                    & writeAtomically(PAYMENTS_FILE, paymentView, Payment::toCSV);
+            // keep the rotated journal until all three base files and their renames are on disk
+            if (ok && forceDirectory(CUSTOMERS_FILE)) journal.discardPrevious();
+        }, snapshotExecutor);
+        return snapshotInFlight;
+    }
 
-    private void writeAllLines(String file, List<String> lines) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
-            for (String l : lines) {
-                bw.write(l);
+    private <T> boolean writeAtomically(String file, List<T> items, Function<T, String> toCSV) {
+        Path target = Paths.get(file);
+        Path tmp = Paths.get(file + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out))) {
+            for (T item : items) {
+                bw.write(toCSV.apply(item));
                 bw.newLine();
             }
+            bw.flush();
+            // the rename may reach the disk before the data otherwise
+            out.getChannel().force(true);
         } catch (IOException e) {
-            System.err.println("Error writing to " + file + ": " + e.getMessage());
+            System.err.println("Error writing to " + tmp + ": " + e.getMessage());
+            return false;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing " + file + ": " + e.getMessage());
+            return false;
         }
     }
 
-    private List<String> loansToCSV() {
-        return loans.stream().map(Loan::toCSV).collect(Collectors.toList());
+    // Makes the renames in the file's directory durable; not supported on every platform
+    static boolean forceDirectory(String file) {
+        Path dir = Paths.get(file).toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows cannot open a directory; its renames are already durable once MoveFileEx returns
+            if (!System.getProperty("os.name").startsWith("Windows")) {
+                System.err.println("Error syncing " + dir + ": " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
     }
 
-    private List<String> paymentsToCSV() {
-        return payments.stream().map(Payment::toCSV).collect(Collectors.toList());
+    // The three base files are parsed concurrently, then merged into the indexes in order
+    private void loadAll() {
+        CompletableFuture<List<Customer>> customerRows = readAsync(CUSTOMERS_FILE, Customer::fromCSV, "customers");
+        CompletableFuture<List<Loan>> loanRows = readAsync(LOANS_FILE, Loan::fromCSV, "loans");
+        CompletableFuture<List<Payment>> paymentRows = readAsync(PAYMENTS_FILE, Payment::fromCSV, "payments");
+        loadCustomers(customerRows.join());
+        loadLoans(loanRows.join());
+        loadPayments(paymentRows.join());
+        replayJournal();
+        synchronized (indexLock) { publish(); }
+        try {
+            interestLedger = InterestLedger.load(INTEREST_LEDGER_FILE);
+        } catch (IOException e) {
+            System.err.println("Error loading interest ledger: " + e.getMessage());
+        }
+        if (journal.getRecordCount() >= COMPACT_THRESHOLD) compact();
     }
 
-    private List<String> customersToCSV() {
-        return customers.stream().map(Customer::toCSV).collect(Collectors.toList());
+    private void replayJournal() {
+        journal.replay((type, payload) -> {
+            switch (type) {
+                case Journal.CUSTOMER: {
+                    Customer c = Customer.fromCSV(payload);
+                    if (c == null) break;
+                    Customer existing = customerMap.get(c.getCustomerId());
+                    if (existing == null) {
+                        customers.add(c);
+                        customerMap.put(c.getCustomerId(), c);
+                    } else {
+                        existing.setName(c.getName());
+                        existing.setCnic(c.getCnic());
+                        existing.setEmail(c.getEmail());
+                        existing.setAddress(c.getAddress());
+                        existing.setPhoneNumber(c.getPhoneNumber());
+                    }
+                    break;
+                }
+                case Journal.CUSTOMER_DELETE: {
+                    Customer c = customerMap.remove(payload);
+                    if (c != null) customers.remove(c);
+                    loansByCustomer.remove(payload);
+                    break;
+                }
+                case Journal.LOAN: {
+                    Loan l = Loan.fromCSV(payload);
+                    if (l == null) break;
+                    Loan existing = loanMap.get(l.getLoanId());
+                    if (existing == null) {
+                        indexLoan(l);
+                    } else {
+                        existing.restoreState(l);
+                        trackLoanStatus(existing);
+                    }
+                    break;
+                }
+                case Journal.PAYMENT: {
+                    Payment p = Payment.fromCSV(payload);
+                    if (p != null) indexPayment(p);
+                    break;
+                }
+                default:
+                    System.err.println("Unknown journal record: " + type);
+            }
+        });
     }
 
-    private void loadAll() {
-        loadCustomers();
-        loadLoans();
-        loadPayments();
+    private <T> CompletableFuture<List<T>> readAsync(String file, Function<CsvCursor, T> parser, String what) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return CsvLoader.load(file, parser);
+            } catch (IOException e) {
+                System.err.println("Error loading " + what + ": " + e.getMessage());
+                return new ArrayList<>();
+            }
+        });
     }
 
-    private void loadCustomers() {
+    private void loadCustomers(List<Customer> rows) {
         customers.clear();
         customerMap.clear();
-        try (BufferedReader br = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                Customer c = Customer.fromCSV(line);
-                if (c != null) {
-                    customers.add(c);
-                    customerMap.put(c.getCustomerId(), c);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading customers: " + e.getMessage());
+        for (Customer c : rows) {
+            customers.add(c);
+            customerMap.put(c.getCustomerId(), c);
         }
     }
 
-    private void loadLoans() {
+    private void loadLoans(List<Loan> rows) {
         loans.clear();
         loanMap.clear();
-        try (BufferedReader br = new BufferedReader(new FileReader(LOANS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                Loan l = Loan.fromCSV(line);
-                if (l != null) {
-                    loans.add(l);
-                    loanMap.put(l.getLoanId(), l);
-                }
+        loansByCustomer.clear();
+        openLoansByDueDate.clear();
+        overdueLoans.clear();
+        loanColumns = new LoanColumns(List.of());
+        // A repeated loan ID keeps its first row, so the loan list and LoanColumns stay row for row;
+        // the later row is taken as the newer state, as a journaled LOAN record would be
+        int repeated = 0;
+        for (Loan l : rows) {
+            Loan existing = loanMap.get(l.getLoanId());
+            if (existing == null) {
+                indexLoan(l);
+                continue;
             }
-        } catch (IOException e) {
-            System.err.println("Error loading loans: " + e.getMessage());
+            existing.restoreState(l);
+            trackLoanStatus(existing);
+            repeated++;
         }
+        if (repeated > 0) System.err.println("Warning: " + repeated + " loan row(s) in " + LOANS_FILE + " repeat an earlier loan ID; the later row was taken as its current state");
     }
 
-    private void loadPayments() {
+    private void loadPayments(List<Payment> rows) {
         payments.clear();
-        try (BufferedReader br = new BufferedReader(new FileReader(PAYMENTS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                Payment p = Payment.fromCSV(line);
-                if (p != null) payments.add(p);
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading payments: " + e.getMessage());
+        unpublishedPayments.clear();
+        paymentIds.clear();
+        paymentsByLoan.clear();
+        totalPaidByLoan.clear();
+        lastPaymentDateByLoan.clear();
+        // Rows in the base file are kept even if their IDs repeat: older builds issued short random
+        // IDs that could collide, and the loan balances already include every such payment
+        int repeated = 0;
+        for (Payment p : rows) {
+            if (!paymentIds.add(p.getPaymentId())) repeated++;
+            payments.add(p);
+            indexByLoan(p);
         }
+        if (repeated > 0) System.err.println("Warning: " + repeated + " payment(s) in " + PAYMENTS_FILE + " reuse an earlier payment ID");
     }
 }
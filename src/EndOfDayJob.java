@@ -0,0 +1,192 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * End-of-day run over the whole loan book for one business date. The book is
+ * split into ranges processed on a fork-join pool; each range flags loans that
+ * fell overdue and sorts open loans into aging buckets. Range summaries are
+ * merged pairwise on the way back up, and the loans whose status changed are
+ * persisted with one journal append. The day's interest is then posted to the
+ * interest ledger and late penalties are charged through DataStore's overdue set.
+ *
+ * Each loan is checked under its DataStore stripe lock, so payments posted
+ * while the job runs are never lost; the shared indexes are only updated from
+ * the calling thread.
+ */
+public class EndOfDayJob {
+    private static final int PARTITION_SIZE = 8192;
+
+    public static final String[] AGING_BUCKETS = {"Current", "1-30 days", "31-60 days", "61-90 days", "90+ days"};
+
+    public static class Summary {
+        private LocalDate businessDate;
+        private int loans;
+        private int open;
+        private int closed;
+        private int overdue;
+        private long outstanding;
+        private long interestPostedToday;
+        private long interestAccruedToDate;
+        private long penaltyChargedToday;
+        private long penaltiesOutstanding;
+        private final int[] agingCount = new int[AGING_BUCKETS.length];
+        private final long[] agingBalance = new long[AGING_BUCKETS.length];
+        private final List<Loan> changed = new ArrayList<>();
+        private long snapshotMillis, processMillis, persistMillis;
+
+        private Summary merge(Summary other) {
+            loans += other.loans;
+            open += other.open;
+            closed += other.closed;
+            overdue += other.overdue;
+            outstanding += other.outstanding;
+            penaltiesOutstanding += other.penaltiesOutstanding;
+            for (int i = 0; i < agingCount.length; i++) {
+                agingCount[i] += other.agingCount[i];
+                agingBalance[i] += other.agingBalance[i];
+            }
+            changed.addAll(other.changed);
+            return this;
+        }
+
+        public LocalDate getBusinessDate() { return businessDate; }
+        public int getLoanCount() { return loans; }
+        public int getOpenCount() { return open; }
+        public int getClosedCount() { return closed; }
+        public int getOverdueCount() { return overdue; }
+        public int getNewlyOverdueCount() { return changed.size(); }
+        public long getOutstandingMinor() { return outstanding; }
+        public long getInterestPostedTodayMinor() { return interestPostedToday; }
+        public long getInterestAccruedToDateMinor() { return interestAccruedToDate; }
+        public long getPenaltyChargedTodayMinor() { return penaltyChargedToday; }
+        public long getPenaltiesOutstandingMinor() { return penaltiesOutstanding; }
+        public int getAgingCount(int bucket) { return agingCount[bucket]; }
+        public long getAgingBalanceMinor(int bucket) { return agingBalance[bucket]; }
+        public long getTotalMillis() { return snapshotMillis + processMillis + persistMillis; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("=========== END OF DAY ").append(businessDate).append(" ===========\n\n");
+            sb.append(String.format("Loans processed:              %d (%d open, %d closed)\n", loans, open, closed));
+            sb.append(String.format("Overdue loans:                %d (%d new today)\n", overdue, changed.size()));
+            sb.append("Outstanding balance:          ").append(Money.format(outstanding)).append("\n");
+            sb.append("Interest posted today:        ").append(Money.format(interestPostedToday)).append("\n");
+            sb.append("Interest accrued to date:     ").append(Money.format(interestAccruedToDate)).append("\n");
+            sb.append("Penalties charged today:      ").append(Money.format(penaltyChargedToday)).append("\n");
+            sb.append("Penalties outstanding:        ").append(Money.format(penaltiesOutstanding)).append("\n\n");
+            sb.append("Aging:\n");
+            for (int i = 0; i < AGING_BUCKETS.length; i++) {
+                sb.append(String.format("  %-12s %10d   ", AGING_BUCKETS[i], agingCount[i]))
+                        .append(Money.format(agingBalance[i])).append("\n");
+            }
+            sb.append(String.format("\nTimings: snapshot %d ms, process %d ms, persist %d ms, total %d ms\n",
+                    snapshotMillis, processMillis, persistMillis, getTotalMillis()));
+            return sb.toString();
+        }
+    }
+
+    private final DataStore store;
+    private final ForkJoinPool pool;
+
+    public EndOfDayJob(DataStore store) {
+        this(store, ForkJoinPool.commonPool());
+    }
+
+    public EndOfDayJob(DataStore store, ForkJoinPool pool) {
+        this.store = store;
+        this.pool = pool;
+    }
+
+    public Summary run(LocalDate businessDate) {
+        long t0 = System.currentTimeMillis();
+        List<Loan> book = store.getLoans();
+        long t1 = System.currentTimeMillis();
+        Summary summary = pool.invoke(new Partition(store, book, 0, book.size(), businessDate));
+        long t2 = System.currentTimeMillis();
+        store.updateLoans(summary.changed);
+        summary.interestPostedToday = store.postInterestAccruals(businessDate);
+        summary.interestAccruedToDate = store.getInterestLedger().getTotalAccruedMinor();
+        summary.penaltyChargedToday = store.accruePenalties(businessDate);
+        summary.penaltiesOutstanding += summary.penaltyChargedToday;
+        store.sync().join();
+        long t3 = System.currentTimeMillis();
+
+        summary.businessDate = businessDate;
+        summary.snapshotMillis = t1 - t0;
+        summary.processMillis = t2 - t1;
+        summary.persistMillis = t3 - t2;
+        return summary;
+    }
+
+    private static class Partition extends RecursiveTask<Summary> {
+        private final DataStore store;
+        private final List<Loan> book;
+        private final int from, to;
+        private final LocalDate date;
+
+        Partition(DataStore store, List<Loan> book, int from, int to, LocalDate date) {
+            this.store = store;
+            this.book = book;
+            this.from = from;
+            this.to = to;
+            this.date = date;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from > PARTITION_SIZE) {
+                int mid = (from + to) >>> 1;
+                Partition left = new Partition(store, book, from, mid, date);
+                left.fork();
+                Summary right = new Partition(store, book, mid, to, date).compute();
+                return left.join().merge(right);
+            }
+            Summary s = new Summary();
+            long today = date.toEpochDay();
+            for (int i = from; i < to; i++) {
+                Loan l = book.get(i);
+                ReentrantLock lock = store.loanLock(l.getLoanId());
+                lock.lock();
+                try {
+                    visit(s, l, today);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return s;
+        }
+
+        private void visit(Summary s, Loan l, long today) {
+            s.loans++;
+            if ("CLOSED".equals(l.getStatus())) {
+                s.closed++;
+                return;
+            }
+            s.open++;
+
+            String before = l.getStatus();
+            l.checkOverdue(date);
+            if (!before.equals(l.getStatus())) s.changed.add(l);
+            if ("OVERDUE".equals(l.getStatus())) s.overdue++;
+
+            long balance = l.getBalanceMinor();
+            int bucket = agingBucket(today - l.getDueDate().toEpochDay());
+            s.outstanding += balance;
+            s.penaltiesOutstanding += l.getPenaltyDueMinor();
+            s.agingCount[bucket]++;
+            s.agingBalance[bucket] += balance;
+        }
+    }
+
+    private static int agingBucket(long daysPastDue) {
+        if (daysPastDue <= 0) return 0;
+        if (daysPastDue <= 30) return 1;
+        if (daysPastDue <= 60) return 2;
+        if (daysPastDue <= 90) return 3;
+        return 4;
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Posted interest income. Each posting brings a loan's recognised interest up
+ * to its straight-line accrual for the posting date (see
+ * {@link Loan#accruedInterestMinor}). Interest is booked on the days it was
+ * earned, so the first posting of an old loan, or a run after missed days,
+ * fills in the earlier days rather than landing on the posting date. A closed
+ * loan recognises whatever was left of its lifetime interest on the posting
+ * date.
+ *
+ * Only running figures are kept: accrued-to-date per loan in parallel primitive
+ * arrays, and the income booked per day in an array indexed by epoch day. Range
+ * queries sum the day slots, independent of the size of the loan book.
+ * Methods are synchronized; hold the ledger's monitor to make a run of
+ * postings atomic with respect to readers.
+ */
+public class InterestLedger {
+    private static final int NEVER = Integer.MIN_VALUE;
+
+    private final Map<String, Integer> rowByLoanId = new HashMap<>();
+    private String[] loanIds = new String[1024];
+    private long[] accrued = new long[1024];
+    private int[] postedThrough = new int[1024];
+    private int rows;
+
+    private int firstDay;           // epoch day of dailyIncome[0]
+    private long[] dailyIncome = new long[0];
+    private long total;
+    private int lastPosted = NEVER; // latest posting date, epoch day
+
+    /**
+     * Posts the interest a loan has earned since its last posting, booked on
+     * the days it was earned up to {@code through}. Posting for a day at or before the last posted day is a
+     * no-op, so repeated or out-of-order runs never double count.
+     * Returns the amount posted.
+     */
+    public synchronized long post(Loan loan, LocalDate through) {
+        int row = row(loan.getLoanId());
+        int day = (int) through.toEpochDay();
+        if (day <= postedThrough[row]) return 0;
+        int issue = (int) loan.getIssueDate().toEpochDay();
+        int from = postedThrough[row] == NEVER ? issue : Math.max(issue, postedThrough[row] + 1);
+        postedThrough[row] = day;
+        lastPosted = Math.max(lastPosted, day);
+
+        long interest = loan.calculateInterestMinor();
+        long term = loan.termDays();
+        long before = accrued[row];
+        long booked = before;
+        for (int d = from; d <= day && booked < interest; d++) {
+            long upTo = Loan.straightLine(interest, d - issue + 1, term);
+            if (upTo <= booked) continue;
+            book(d, upTo - booked);
+            booked = upTo;
+        }
+        if ("CLOSED".equals(loan.getStatus()) && booked < interest) {
+            book(day, interest - booked);
+            booked = interest;
+        }
+        accrued[row] = booked;
+        return booked - before;
+    }
+
+    public synchronized long getAccruedMinor(String loanId) {
+        Integer row = rowByLoanId.get(loanId);
+        return row == null ? 0 : accrued[row];
+    }
+
+    public synchronized LocalDate getPostedThrough(String loanId) {
+        Integer row = rowByLoanId.get(loanId);
+        return row == null || postedThrough[row] == NEVER ? null : LocalDate.ofEpochDay(postedThrough[row]);
+    }
+
+    public synchronized long getTotalAccruedMinor() { return total; }
+
+    // Latest date interest was posted for, or null before the first end-of-day run
+    public synchronized LocalDate getLastPostedDate() {
+        return lastPosted == NEVER ? null : LocalDate.ofEpochDay(lastPosted);
+    }
+
+    // Interest income booked between the two dates, both inclusive
+    public synchronized long incomeBetween(LocalDate from, LocalDate to) {
+        int lo = Math.max(0, (int) from.toEpochDay() - firstDay);
+        int hi = Math.min(dailyIncome.length - 1, (int) to.toEpochDay() - firstDay);
+        long sum = 0;
+        for (int i = lo; i <= hi; i++) sum += dailyIncome[i];
+        return sum;
+    }
+
+    private int row(String loanId) {
+        Integer row = rowByLoanId.get(loanId);
+        if (row != null) return row;
+        if (rows == loanIds.length) {
+            int size = rows * 2;
+            loanIds = Arrays.copyOf(loanIds, size);
+            accrued = Arrays.copyOf(accrued, size);
+            postedThrough = Arrays.copyOf(postedThrough, size);
+        }
+        loanIds[rows] = loanId;
+        accrued[rows] = 0;
+        postedThrough[rows] = NEVER;
+        rowByLoanId.put(loanId, rows);
+        return rows++;
+    }
+
+    private void book(int day, long amount) {
+        if (dailyIncome.length == 0) {
+            firstDay = day;
+            dailyIncome = new long[366];
+        } else if (day < firstDay) {
+            int shift = firstDay - day;
+            long[] grown = new long[dailyIncome.length + shift];
+            System.arraycopy(dailyIncome, 0, grown, shift, dailyIncome.length);
+            dailyIncome = grown;
+            firstDay = day;
+        } else if (day - firstDay >= dailyIncome.length) {
+            dailyIncome = Arrays.copyOf(dailyIncome, Math.max(dailyIncome.length * 2, day - firstDay + 1));
+        }
+        dailyIncome[day - firstDay] += amount;
+        total += amount;
+    }
+
+    // ---------------- persistence ----------------
+
+    // LOAN,<loanId>,<accrued>,<posted through> and DAY,<date>,<income> rows, replaced atomically
+    public synchronized void save(String file) throws IOException {
+        Path tmp = Paths.get(file + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out))) {
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < rows; i++) {
+                sb.setLength(0);
+                sb.append("LOAN,").append(loanIds[i]).append(',');
+                Money.append(sb, accrued[i]).append(',');
+                if (postedThrough[i] != NEVER) sb.append(LocalDate.ofEpochDay(postedThrough[i]));
+                bw.append(sb);
+                bw.newLine();
+            }
+            for (int i = 0; i < dailyIncome.length; i++) {
+                if (dailyIncome[i] == 0) continue;
+                sb.setLength(0);
+                sb.append("DAY,").append(LocalDate.ofEpochDay(firstDay + i)).append(',');
+                bw.append(Money.append(sb, dailyIncome[i]));
+                bw.newLine();
+            }
+            bw.flush();
+            out.getChannel().force(true);
+        }
+        Files.move(tmp, Paths.get(file), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        DataStore.forceDirectory(file);
+    }
+
+    public static InterestLedger load(String file) throws IOException {
+        InterestLedger ledger = new InterestLedger();
+        if (!Files.exists(Paths.get(file))) return ledger;
+        try (BufferedReader br = new BufferedReader(new FileReader(file), 1 << 16)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                CsvCursor row = CsvCursor.of(line);
+                if (row.isBlank()) continue;
+                String kind = row.nextString();
+                if ("LOAN".equals(kind)) {
+                    int r = ledger.row(row.nextString());
+                    ledger.accrued[r] = row.nextMoney();
+                    String through = row.nextString();
+                    if (!through.isEmpty()) {
+                        ledger.postedThrough[r] = (int) LocalDate.parse(through).toEpochDay();
+                        ledger.lastPosted = Math.max(ledger.lastPosted, ledger.postedThrough[r]);
+                    }
+                } else if ("DAY".equals(kind)) {
+                    int day = (int) row.nextDate().toEpochDay();
+                    ledger.book(day, row.nextMoney());
+                }
+            }
+        }
+        return ledger;
+    }
+}
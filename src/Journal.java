@@ -0,0 +1,252 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only transaction journal. Every mutation of the data store is written
+ * here as a single "TYPE,payload" line instead of rewriting the CSV base files,
+ * and the journal is replayed over the base files on startup.
+ *
+ * When a snapshot starts the live journal is rotated into a "previous" file and
+ * new records go to a fresh, small delta file. The previous file is only
+ * discarded once the snapshot has been swapped in, so a crash at any point
+ * still replays to the same state.
+ *
+ * Appends never touch the disk on the caller's thread. They are queued for a
+ * dedicated writer thread that keeps one channel open, drains whatever has
+ * queued up (lingering a couple of milliseconds for stragglers) and makes the
+ * whole group durable with a single force(). Each append returns a future
+ * that completes once its records are on disk.
+ */
+public class Journal {
+    public static final String CUSTOMER = "CUSTOMER";
+    public static final String CUSTOMER_DELETE = "CUSTOMER_DELETE";
+    public static final String LOAN = "LOAN";
+    public static final String PAYMENT = "PAYMENT";
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final String NEWLINE = System.lineSeparator();
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int MAX_BATCH = 4096;
+
+    private final String file;
+    private final String previousFile;
+    private final AtomicInteger recordCount = new AtomicInteger();
+
+    private static class Pending {
+        final String[] records;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(String[] records) { this.records = records; }
+    }
+
+    private static final Pending SHUTDOWN = new Pending(new String[0]);
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Object writeLock = new Object(); // guards channel and the files on disk
+    private FileChannel channel;
+    private volatile Thread writer;
+    private Thread shutdownHook;   // registered only while a writer thread runs
+
+    public Journal(String file, String previousFile) {
+        this.file = file;
+        this.previousFile = previousFile;
+    }
+
+    public int getRecordCount() { return recordCount.get(); }
+
+    public static String record(String type, String payload) {
+        return type + "," + payload;
+    }
+
+    // All records of one call are written in the same group so a mutation is never half-journaled
+    public CompletableFuture<Void> append(String... records) {
+        Pending p = new Pending(records);
+        recordCount.addAndGet(records.length);
+        queue.add(p);
+        // no lock on the common path; close() re-checks the queue after clearing writer
+        if (writer == null) ensureWriter();
+        return p.done;
+    }
+
+    private synchronized void ensureWriter() {
+        if (writer == null && !queue.isEmpty()) startWriter();
+    }
+
+    // Completes once everything appended so far is durable
+    public CompletableFuture<Void> sync() { return append(); }
+
+    // Drains the queue and stops the writer thread
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            t = writer;
+            if (t == null) return;
+            queue.add(SHUTDOWN);
+        }
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (this) {
+            if (writer != t) return;
+            writer = null;
+            // records queued behind the shutdown marker still get written
+            if (!queue.isEmpty()) startWriter();
+            else removeShutdownHook();
+        }
+    }
+
+    private void startWriter() {
+        writer = new Thread(this::runWriter, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (shutdownHook != null) return;
+        shutdownHook = new Thread(this::close, "journal-shutdown");
+        try {
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            shutdownHook = null; // the JVM is already exiting
+        }
+    }
+
+    private void removeShutdownHook() {
+        if (shutdownHook == null) return;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // closing from the hook itself while the JVM exits
+        }
+        shutdownHook = null;
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(8192);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + LINGER_NANOS;
+                while (batch.size() < MAX_BATCH && batch.get(batch.size() - 1) != SHUTDOWN) {
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty() && batch.get(batch.size() - 1) == SHUTDOWN) {
+                batch.remove(batch.size() - 1);
+                running = false;
+            }
+            writeBatch(batch, sb);
+            batch.clear();
+        }
+        synchronized (writeLock) {
+            closeChannel();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch, StringBuilder sb) {
+        if (batch.isEmpty()) return;
+        sb.setLength(0);
+        for (Pending p : batch) {
+            for (String r : p.records) sb.append(r).append(NEWLINE);
+        }
+        try {
+            synchronized (writeLock) {
+                if (channel == null) {
+                    channel = FileChannel.open(Paths.get(file),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                if (sb.length() > 0) {
+                    ByteBuffer buf = CHARSET.encode(CharBuffer.wrap(sb));
+                    while (buf.hasRemaining()) channel.write(buf);
+                }
+                channel.force(false);
+            }
+            for (Pending p : batch) p.done.complete(null);
+        } catch (IOException e) {
+            System.err.println("Error writing to " + file + ": " + e.getMessage());
+            synchronized (writeLock) {
+                closeChannel();
+            }
+            for (Pending p : batch) p.done.completeExceptionally(e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    // Replays the previous journal left by an unfinished snapshot, then the live one
+    public synchronized void replay(BiConsumer<String, String> handler) {
+        recordCount.set(0);
+        replayFile(previousFile, handler);
+        replayFile(file, handler);
+    }
+
+    private void replayFile(String file, BiConsumer<String, String> handler) {
+        if (!Files.exists(Paths.get(file))) return;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = CsvLoader.readRecord(br)) != null) {
+                int comma = line.indexOf(',');
+                if (comma <= 0) continue;
+                handler.accept(line.substring(0, comma), line.substring(comma + 1));
+                recordCount.incrementAndGet();
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the live records aside for a snapshot; later appends start a new
+     * delta file. Records still queued may land on either side of the rotation,
+     * which is harmless because replay is idempotent.
+     */
+    public synchronized void rotate() throws IOException {
+        recordCount.set(0);
+        synchronized (writeLock) {
+            closeChannel();
+            Path current = Paths.get(file);
+            Path previous = Paths.get(previousFile);
+            if (!Files.exists(current)) return;
+            if (Files.exists(previous)) {
+                // an earlier snapshot never finished, so keep its records too
+                Files.write(previous, Files.readAllBytes(current), StandardOpenOption.APPEND);
+                Files.delete(current);
+            } else {
+                Files.move(current, previous, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    public void discardPrevious() {
+        synchronized (writeLock) {
+            try {
+                Files.deleteIfExists(Paths.get(previousFile));
+            } catch (IOException e) {
+                System.err.println("Error deleting " + previousFile + ": " + e.getMessage());
+            }
+        }
+    }
+}
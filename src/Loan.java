@@ -4,65 +4,132 @@ import java.util.Objects;
 public abstract class Loan {
     protected String loanId;
     protected String customerId;
-    protected double principal;
+    protected long principal;      // paisa, see Money
     protected double interestRate;
     protected int durationMonths;
-    protected double balance;
+    protected long balance;        // paisa
     protected LocalDate issueDate;
     protected LocalDate dueDate;
     protected String status; // ACTIVE, CLOSED, OVERDUE
     protected boolean installment; // new field
-    protected double emi;          // new field
+    protected long emi;            // paisa
+    protected long penalty;        // late-payment penalty charged so far, paisa
+    protected long penaltyPaid;    // part of the penalty settled by payments, paisa
+    protected LocalDate penaltyAccruedTo; // last day penalties were charged for, null if never
 
     public Loan(String loanId, String customerId, double principal, double interestRate, int durationMonths, LocalDate issueDate, boolean installment) {
         this.loanId = loanId;
         this.customerId = customerId;
-        this.principal = principal;
+        this.principal = Money.of(principal);
         this.interestRate = interestRate;
         this.durationMonths = durationMonths;
         this.issueDate = issueDate;
         this.dueDate = issueDate.plusMonths(durationMonths);
         this.status = "ACTIVE";
         this.installment = installment;
-        this.balance = calculateTotalPayable();
-        if (installment) this.emi = calculateEMI();
-        else this.emi = 0.0;
+        this.balance = calculateTotalPayableMinor();
+        if (installment) this.emi = calculateEMIMinor();
+        else this.emi = 0;
     }
 
     public String getLoanId() { return loanId; }
     public String getCustomerId() { return customerId; }
-    public double getPrincipal() { return principal; }
+    public double getPrincipal() { return Money.toDouble(principal); }
+    public long getPrincipalMinor() { return principal; }
     public double getInterestRate() { return interestRate; }
     public int getDurationMonths() { return durationMonths; }
-    public double getBalance() { return balance; }
+    public double getBalance() { return Money.toDouble(balance); }
+    public long getBalanceMinor() { return balance; }
     public LocalDate getIssueDate() { return issueDate; }
     public LocalDate getDueDate() { return dueDate; }
     public String getStatus() { return status; }
     public boolean isInstallment() { return installment; }
-    public double getEmi() { return emi; }
+    public double getEmi() { return Money.toDouble(emi); }
+    public long getEmiMinor() { return emi; }
+    public long getPenaltyMinor() { return penalty; }
+    public long getPenaltyPaidMinor() { return penaltyPaid; }
+    public long getPenaltyDueMinor() { return penalty - penaltyPaid; }
+    // What the borrower still owes: the balance plus any unpaid penalty
+    public long getAmountDueMinor() { return balance + getPenaltyDueMinor(); }
+    public LocalDate getPenaltyAccruedTo() { return penaltyAccruedTo; }
+
+    // Lifetime interest in paisa
+    public abstract long calculateInterestMinor();
+
+    public double calculateInterest() { return Money.toDouble(calculateInterestMinor()); }
+
+    public long calculateTotalPayableMinor() { return principal + calculateInterestMinor(); }
+
+    public double calculateTotalPayable() { return Money.toDouble(calculateTotalPayableMinor()); }
+
+    /*
+     * What an installment borrower pays each month: an even share of the principal
+     * and of the lifetime interest. The last installment also takes the rounding
+     * remainder, see AmortizationSchedule. 0 for bullet loans.
+     */
+    public long getInstallmentMinor() {
+        if (!installment) return 0;
+        return principal / durationMonths + calculateInterestMinor() / durationMonths;
+    }
 
-    public abstract double calculateInterest();
+    /*
+     * Reducing-balance annuity EMI, kept in the emi column of loans.csv. The
+     * loan is charged flat interest, so this is not the payable installment;
+     * see getInstallmentMinor. The annuity factor is cached per (rate, months).
+     */
+    public long calculateEMIMinor() {
+        if (!installment) return 0;
+        return Money.multiply(principal, AmortizationFactors.annuity(interestRate, durationMonths));
+    }
 
-    public double calculateTotalPayable() { return round(principal + calculateInterest()); }
+    public double calculateEMI() { return Money.toDouble(calculateEMIMinor()); }
 
-    public double calculateEMI() {
-        if (!installment) return 0.0;
-        double r = interestRate / 12 / 100.0;
-        double n = durationMonths;
-        return round(principal * r * Math.pow(1 + r, n) / (Math.pow(1 + r, n) - 1));
+    // Lifetime interest earned up to the end of the given day, spread evenly over the days of the term
+    public long accruedInterestMinor(LocalDate asOf) {
+        return straightLine(calculateInterestMinor(), asOf.toEpochDay() - issueDate.toEpochDay() + 1, termDays());
     }
 
-    public void makePayment(double amount) {
-        if (amount <= 0) return;
-        balance = round(balance - amount);
-        if (balance <= 0.0) {
-            balance = 0.0;
-            status = "CLOSED";
-        }
+    public long termDays() { return dueDate.toEpochDay() - issueDate.toEpochDay(); }
+
+    // Share of the interest earned after the given number of days of the term
+    static long straightLine(long interest, long elapsedDays, long termDays) {
+        if (elapsedDays <= 0 || termDays <= 0) return 0;
+        return elapsedDays >= termDays ? interest : interest * elapsedDays / termDays;
+    }
+
+    public void makePayment(double amount) { makePayment(Money.of(amount)); }
+
+    // Settles any unpaid penalty first, then the balance; the loan closes once both are cleared
+    public void makePayment(long amountMinor) {
+        if (amountMinor <= 0) return;
+        long toPenalty = Math.min(amountMinor, getPenaltyDueMinor());
+        penaltyPaid += toPenalty;
+        balance = Math.max(0, balance - (amountMinor - toPenalty));
+        if (getAmountDueMinor() == 0) status = "CLOSED";
+    }
+
+    // Charges penalties for the overdue days since the last accrual; returns the amount added
+    public long accruePenalty(LocalDate through, PenaltyPolicy.Rule rule) {
+        if (!"OVERDUE".equals(status)) return 0;
+        LocalDate from = penaltyAccruedTo != null ? penaltyAccruedTo : dueDate;
+        long charge = rule.charge(this, through.toEpochDay() - from.toEpochDay());
+        if (charge <= 0) return 0;
+        penalty += charge;
+        penaltyAccruedTo = through;
+        return charge;
+    }
+
+    // Applies the mutable state of a journaled copy of this loan
+    void restoreState(Loan other) {
+        this.balance = other.balance;
+        this.status = other.status;
+        this.penalty = other.penalty;
+        this.penaltyPaid = other.penaltyPaid;
+        this.penaltyAccruedTo = other.penaltyAccruedTo;
     }
 
     public void checkOverdue(LocalDate now) {
-        if (!"CLOSED".equals(status) && now.isAfter(dueDate) && balance > 0.0) {
+        if (!"CLOSED".equals(status) && now.isAfter(dueDate) && getAmountDueMinor() > 0) {
             status = "OVERDUE";
         }
     }
@@ -74,33 +141,48 @@ public abstract class Loan {
                 getLoanType(),
                 loanId,
                 customerId,
-                String.valueOf(principal),
+                Money.format(principal),
                 String.valueOf(interestRate),
                 String.valueOf(durationMonths),
-                String.valueOf(balance),
+                Money.format(balance),
                 issueDate.toString(),
                 dueDate.toString(),
                 status,
                 String.valueOf(installment),
-                String.valueOf(emi)
+                Money.format(emi),
+                Money.format(penalty),
+                penaltyAccruedTo == null ? "" : penaltyAccruedTo.toString(),
+                Money.format(penaltyPaid)
         );
     }
 
-    public static Loan fromCSV(String line) {
-        String[] p = line.split(",", -1);
-        if (p.length < 12) return null;
-        String type = p[0];
-        String id = p[1];
-        String custId = p[2];
-        double principal = Double.parseDouble(p[3]);
-        double rate = Double.parseDouble(p[4]);
-        int duration = Integer.parseInt(p[5]);
-        double balance = Double.parseDouble(p[6]);
-        LocalDate issue = LocalDate.parse(p[7]);
-        String status = p[9];
-        boolean installment = Boolean.parseBoolean(p[10]);
-        // emi is optional because it can be recalculated
-        // double emi = Double.parseDouble(p[11]);
+    public static Loan fromCSV(String line) { return fromCSV(CsvCursor.of(line)); }
+
+    public static Loan fromCSV(CsvCursor row) {
+        int fields = row.remainingFields();
+        if (fields < 12) return null;
+        String type = row.nextString();
+        String id = row.nextString();
+        String custId = row.nextString();
+        double principal = Money.toDouble(row.nextMoney());
+        double rate = row.nextDouble();
+        int duration = row.nextInt();
+        long balance = row.nextMoney();
+        LocalDate issue = row.nextDate();
+        row.skip(); // due date is derived from the issue date
+        String status = row.nextString();
+        boolean installment = row.nextBoolean();
+        // emi is optional because it can be recalculated; penalty columns are absent in older files
+        long penalty = 0;
+        long penaltyPaid = 0;
+        LocalDate penaltyAccruedTo = null;
+        if (fields >= 14) {
+            row.skip();
+            penalty = row.nextMoney();
+            String accruedTo = row.nextString();
+            if (!accruedTo.isEmpty()) penaltyAccruedTo = LocalDate.parse(accruedTo);
+            if (fields >= 15) penaltyPaid = row.nextMoney();
+        }
 
         Loan loan;
         switch (type) {
@@ -118,17 +200,18 @@ public abstract class Loan {
         }
         loan.balance = balance;
         loan.status = status;
+        loan.penalty = penalty;
+        loan.penaltyPaid = penaltyPaid;
+        loan.penaltyAccruedTo = penaltyAccruedTo;
         return loan;
     }
 
     @Override
     public String toString() {
         return String.format("%s | %s | P:%.2f | R:%.2f%% | D:%d mo | Bal:%.2f | Issued:%s | Due:%s | %s | Installment:%b | EMI:%.2f",
-                getLoanType(), loanId, principal, interestRate, durationMonths, balance, issueDate, dueDate, status, installment, emi);
+                getLoanType(), loanId, getPrincipal(), interestRate, durationMonths, getBalance(), issueDate, dueDate, status, installment, getEmi());
     }
 
-    protected double round(double v) { return Math.round(v * 100.0) / 100.0; }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
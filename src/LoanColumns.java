@@ -0,0 +1,172 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Columnar (struct-of-arrays) mirror of the loan book. Each loan occupies one
+ * row across primitive arrays, so portfolio-wide aggregates run as plain loops
+ * over contiguous memory instead of visiting one heap object per loan.
+ * Amounts are in paisa (see Money), so the sums are exact. All methods are
+ * synchronized so aggregates can be read while DataStore posts updates.
+ *
+ * Portfolio totals (principal, balance, interest, counts by status and type,
+ * outstanding by type) are kept as running figures: add and update adjust them
+ * by the difference from the row's stored values, so reading them is O(1).
+ */
+public class LoanColumns {
+    public static final byte STATUS_ACTIVE = 0;
+    public static final byte STATUS_OVERDUE = 1;
+    public static final byte STATUS_CLOSED = 2;
+
+    public static final byte TYPE_PERSONAL = 0;
+    public static final byte TYPE_BUSINESS = 1;
+    public static final byte TYPE_EDUCATION = 2;
+
+    private int size;
+    private long[] principal = new long[16];
+    private long[] balance = new long[16];
+    private long[] interest = new long[16];
+    private double[] rate = new double[16];
+    private int[] duration = new int[16];
+    private byte[] status = new byte[16];
+    private byte[] type = new byte[16];
+    private long[] issueDay = new long[16];
+    private long[] dueDay = new long[16];
+
+    private final Map<String, Integer> rowByLoanId = new HashMap<>();
+
+    private long totalPrincipal;
+    private long totalBalance;
+    private long totalInterest;
+    private final int[] statusCount = new int[3];
+    private final int[] typeCount = new int[3];
+    private final long[] principalByType = new long[3];
+    private final long[] balanceByType = new long[3];
+
+    public LoanColumns(Collection<Loan> loans) {
+        ensureCapacity(loans.size());
+        for (Loan l : loans) add(l);
+    }
+
+    public synchronized int size() { return size; }
+
+    // Row of a loan, or -1; rows are appended in issue order, matching DataStore.getLoans()
+    public synchronized int rowOf(String loanId) {
+        Integer row = rowByLoanId.get(loanId);
+        return row == null ? -1 : row;
+    }
+
+    public synchronized void add(Loan l) {
+        Integer existing = rowByLoanId.get(l.getLoanId());
+        if (existing != null) {
+            update(l);
+            return;
+        }
+        ensureCapacity(size + 1);
+        int row = size++;
+        rowByLoanId.put(l.getLoanId(), row);
+        principal[row] = l.getPrincipalMinor();
+        interest[row] = l.calculateInterestMinor();
+        rate[row] = l.getInterestRate();
+        duration[row] = l.getDurationMonths();
+        type[row] = typeCode(l.getLoanType());
+        issueDay[row] = l.getIssueDate().toEpochDay();
+        dueDay[row] = l.getDueDate().toEpochDay();
+        balance[row] = l.getBalanceMinor();
+        status[row] = statusCode(l.getStatus());
+
+        byte t = type[row];
+        totalPrincipal += principal[row];
+        totalBalance += balance[row];
+        totalInterest += interest[row];
+        statusCount[status[row]]++;
+        typeCount[t]++;
+        principalByType[t] += principal[row];
+        balanceByType[t] += balance[row];
+    }
+
+    // Only balance and status change after a loan is issued
+    public synchronized void update(Loan l) {
+        Integer row = rowByLoanId.get(l.getLoanId());
+        if (row == null) return;
+        long newBalance = l.getBalanceMinor();
+        byte newStatus = statusCode(l.getStatus());
+
+        totalBalance += newBalance - balance[row];
+        balanceByType[type[row]] += newBalance - balance[row];
+        statusCount[status[row]]--;
+        statusCount[newStatus]++;
+
+        balance[row] = newBalance;
+        status[row] = newStatus;
+    }
+
+    public synchronized long sumPrincipal() { return totalPrincipal; }
+    public synchronized long sumBalance() { return totalBalance; }
+    public synchronized long sumInterest() { return totalInterest; }
+    public synchronized long principalByType(byte code) { return principalByType[code]; }
+    public synchronized long balanceByType(byte code) { return balanceByType[code]; }
+
+    public synchronized double weightedAverageRate() {
+        double weighted = 0, total = 0;
+        for (int i = 0; i < size; i++) {
+            weighted += rate[i] * principal[i];
+            total += principal[i];
+        }
+        return total > 0 ? weighted / total : 0.0;
+    }
+
+    public synchronized double averageDurationMonths() {
+        long months = 0;
+        for (int i = 0; i < size; i++) months += duration[i];
+        return size > 0 ? (double) months / size : 0.0;
+    }
+
+    // Principal of loans issued in [from, to]
+    public synchronized long principalIssuedBetween(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay(), end = to.toEpochDay();
+        long s = 0;
+        for (int i = 0; i < size; i++) if (issueDay[i] >= start && issueDay[i] <= end) s += principal[i];
+        return s;
+    }
+
+    public synchronized int countByStatus(byte code) { return statusCount[code]; }
+    public synchronized int countByType(byte code) { return typeCount[code]; }
+
+    // Outstanding balance of loans due on or before the given date
+    public synchronized long balanceDueBy(LocalDate date) {
+        long day = date.toEpochDay();
+        long s = 0;
+        for (int i = 0; i < size; i++) if (dueDay[i] <= day) s += balance[i];
+        return s;
+    }
+
+    public static byte statusCode(String status) {
+        switch (status) {
+            case "OVERDUE": return STATUS_OVERDUE;
+            case "CLOSED": return STATUS_CLOSED;
+            default: return STATUS_ACTIVE;
+        }
+    }
+
+    public static byte typeCode(String loanType) {
+        switch (loanType) {
+            case "BUSINESS": return TYPE_BUSINESS;
+            case "EDUCATION": return TYPE_EDUCATION;
+            default: return TYPE_PERSONAL;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= principal.length) return;
+        int cap = Math.max(needed, principal.length * 2);
+        principal = Arrays.copyOf(principal, cap);
+        balance = Arrays.copyOf(balance, cap);
+        interest = Arrays.copyOf(interest, cap);
+        rate = Arrays.copyOf(rate, cap);
+        duration = Arrays.copyOf(duration, cap);
+        status = Arrays.copyOf(status, cap);
+        type = Arrays.copyOf(type, cap);
+        issueDay = Arrays.copyOf(issueDay, cap);
+        dueDay = Arrays.copyOf(dueDay, cap);
+    }
+}
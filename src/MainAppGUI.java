@@ -1,7 +1,7 @@
 // MainAppGUI.java
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
@@ -13,6 +13,13 @@ import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class MainAppGUI {
 
@@ -23,9 +30,22 @@ public class MainAppGUI {
     private DataStore store;
     private ReportGenerator reports;
 
-    private DefaultTableModel customerModel;
-    private DefaultTableModel loanModel;
-    private DefaultTableModel paymentModel;
+    private CustomerTableModel customerModel;
+    private LoanTableModel loanModel;
+    private PaymentTableModel paymentModel;
+
+    private JLabel customersStat;
+    private JLabel loansStat;
+    private JLabel outstandingStat;
+    private GraphPanel loanGraph;
+    private DefaultListModel<String> recentLoans;
+
+    // Store events waiting for the EDT; drained in one pass so a burst costs one repaint
+    private final List<StoreEvent> pendingEvents = new ArrayList<>();
+
+    // Slow work shows its progress dialog only if it is still running after this long
+    private static final int PROGRESS_DELAY_MS = 300;
+    private static final int EDT_BUDGET_MS = 50;
 
     private final Map<String, String> ADMIN_CREDENTIALS = new HashMap<>() {{
         put("Maryam", "M33228");
@@ -456,19 +476,37 @@ public class MainAppGUI {
     }
 
     public static void main(String[] args) {
+        // The data files are read while the user logs in
+        CompletableFuture<DataStore> loading = CompletableFuture.supplyAsync(DataStore::new);
+        if (Boolean.getBoolean("edt.watch")) Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EdtWatch());
+
         SwingUtilities.invokeLater(() -> {
             try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignored) {}
             try { UIManager.setLookAndFeel("javax.swing.plaf.nimbus.NimbusLookAndFeel"); } catch (Exception ignored) {}
 
             MainAppGUI app = new MainAppGUI();
             if (app.showLoginDialog()) {
-                app.init();
+                app.runTask("Loading data", progress -> {
+                    progress.update("Reading customers, loans and payments", 0, 0);
+                    return loading.get();
+                }, app::init, () -> System.exit(0));
             }
         });
     }
 
-    private void init() {
-        store = new DataStore();
+    // Logs EDT dispatches over the latency budget; a modal dialog counts as one long dispatch
+    private static final class EdtWatch extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            super.dispatchEvent(event);
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            if (ms > EDT_BUDGET_MS) System.err.println("EDT busy for " + ms + " ms: " + event);
+        }
+    }
+
+    private void init(DataStore loaded) {
+        store = loaded;
         reports = new ReportGenerator(store);
 
         frame = new JFrame("Community Fund Management");
@@ -480,10 +518,221 @@ public class MainAppGUI {
         frame.add(createTopBar(), BorderLayout.NORTH);
         frame.add(createSideBar(), BorderLayout.WEST);
         frame.add(createContentPanel(), BorderLayout.CENTER);
+        store.addListener(this::queueStoreEvent);
 
         frame.setVisible(true);
     }
 
+    // Work for runTask; runs on a worker thread and should stop when interrupted
+    private interface Task<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    private interface Progress {
+        // A total of zero or less shows an indeterminate bar
+        void update(String message, long done, long total);
+    }
+
+    private static final class ProgressUpdate {
+        final String message;
+        final long done;
+        final long total;
+
+        ProgressUpdate(String message, long done, long total) {
+            this.message = message;
+            this.done = done;
+            this.total = total;
+        }
+    }
+
+    // Runs work that cannot be abandoned halfway, such as a store update; its dialog has no Cancel button
+    private <T> void runTask(String title, Task<T> task, Consumer<T> onDone) {
+        runTask(title, task, onDone, null);
+    }
+
+    /*
+     * Runs file I/O and whole-book work on a SwingWorker thread so the EDT only
+     * applies the result. If the work is still running after PROGRESS_DELAY_MS a
+     * modal dialog shows its progress; Cancel interrupts the worker, and the
+     * dialog stays up until the work has actually stopped. onDone or onCancel
+     * runs on the EDT; failures are reported in a message dialog.
+     * Java 17 has no virtual threads, so the work runs on SwingWorker's pool.
+     */
+    private <T> void runTask(String title, Task<T> task, Consumer<T> onDone, Runnable onCancel) {
+        JDialog dialog = new JDialog(frame, title, Dialog.ModalityType.APPLICATION_MODAL);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        JLabel message = new JLabel(title + "...");
+        message.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        JProgressBar bar = new JProgressBar(0, 1000);
+        bar.setIndeterminate(true);
+        bar.setStringPainted(true);
+        bar.setString("");
+        JButton cancelBtn = new JButton("Cancel");
+        // Whoever claims this first finishes a cancel: the worker once its work stops, or done() if it never started
+        AtomicBoolean claimed = new AtomicBoolean();
+        Runnable finishCancel = () -> {
+            dialog.dispose();
+            onCancel.run();
+        };
+
+        SwingWorker<T, ProgressUpdate> worker = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                if (!claimed.compareAndSet(false, true)) return null;
+                try {
+                    return task.run((msg, done, total) -> publish(new ProgressUpdate(msg, done, total)));
+                } finally {
+                    SwingUtilities.invokeLater(() -> {
+                        if (isCancelled()) finishCancel.run();
+                    });
+                }
+            }
+
+            @Override
+            protected void process(List<ProgressUpdate> updates) {
+                ProgressUpdate u = updates.get(updates.size() - 1);
+                if (u.message != null) message.setText(u.message);
+                if (u.total > 0) {
+                    bar.setIndeterminate(false);
+                    bar.setValue((int) (u.done * 1000 / u.total));
+                    bar.setString(u.done + " / " + u.total);
+                } else if (u.done > 0) {
+                    bar.setString(String.valueOf(u.done));
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    // done() runs as soon as cancel is requested; a running task may still be posting
+                    if (claimed.compareAndSet(false, true)) finishCancel.run();
+                    return;
+                }
+                dialog.dispose();
+                try {
+                    onDone.accept(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    JOptionPane.showMessageDialog(frame, title + " failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        cancelBtn.addActionListener(e -> {
+            cancelBtn.setEnabled(false);
+            message.setText("Cancelling...");
+            worker.cancel(true);
+        });
+
+        JPanel body = new JPanel(new BorderLayout(0, 10));
+        body.setBorder(new EmptyBorder(15, 15, 15, 15));
+        body.add(message, BorderLayout.NORTH);
+        body.add(bar, BorderLayout.CENTER);
+        if (onCancel != null) {
+            JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+            buttons.add(cancelBtn);
+            body.add(buttons, BorderLayout.SOUTH);
+        }
+        dialog.setContentPane(body);
+        dialog.setSize(380, 150);
+        dialog.setLocationRelativeTo(frame);
+
+        Timer showLater = new Timer(PROGRESS_DELAY_MS, e -> {
+            if (!worker.isDone()) dialog.setVisible(true);
+        });
+        showLater.setRepeats(false);
+        worker.execute();
+        showLater.start();
+    }
+
+    // Runs a search over a table's rows off the EDT, then selects and scrolls to the first match
+    private <T> void findRow(JTable table, String query, List<T> rows, java.util.function.Predicate<T> matches) {
+        runTask("Searching", progress -> {
+            for (int i = 0; i < rows.size(); i++) {
+                if (matches.test(rows.get(i))) return i;
+                if ((i & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) return -1;
+            }
+            return -1;
+        }, row -> {
+            if (row < 0 || row >= table.getRowCount()) {
+                JOptionPane.showMessageDialog(frame, "No records found for: " + query, "Search Result", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            table.setRowSelectionInterval(row, row);
+            table.scrollRectToVisible(table.getCellRect(row, 0, true));
+        }, () -> { });
+    }
+
+    private void queueStoreEvent(StoreEvent e) {
+        synchronized (pendingEvents) {
+            pendingEvents.add(e);
+            if (pendingEvents.size() > 1) return;
+        }
+        SwingUtilities.invokeLater(this::applyStoreEvents);
+    }
+
+    private void applyStoreEvents() {
+        List<StoreEvent> batch;
+        synchronized (pendingEvents) {
+            batch = new ArrayList<>(pendingEvents);
+            pendingEvents.clear();
+        }
+        if (batch.isEmpty()) return;
+
+        boolean customersAdded = false, customersDeleted = false, loansIssued = false, paymentsApplied = false;
+        Set<Customer> editedCustomers = new HashSet<>();
+        Set<Loan> changedLoans = new HashSet<>();
+        for (StoreEvent e : batch) {
+            switch (e.getType()) {
+                case CUSTOMER_ADDED: customersAdded = true; break;
+                case CUSTOMER_EDITED: editedCustomers.add(e.getCustomer()); break;
+                case CUSTOMER_DELETED: customersDeleted = true; break;
+                case LOAN_ISSUED:
+                    loansIssued = true;
+                    recentLoans.addElement(e.getLoan().toString());
+                    if (recentLoans.size() > 8) recentLoans.remove(0);
+                    break;
+                case PAYMENT_APPLIED:
+                    paymentsApplied = true;
+                    if (e.getLoan() != null) changedLoans.add(e.getLoan());
+                    break;
+                case LOAN_STATUS_CHANGED:
+                case LOAN_UPDATED:
+                    changedLoans.add(e.getLoan());
+                    break;
+            }
+        }
+
+        if (customersDeleted) customerModel.reload();
+        else if (customersAdded) customerModel.syncAppended();
+        for (Customer c : editedCustomers) customerModel.rowChanged(customerModel.indexOf(c));
+
+        if (loansIssued) loanModel.syncAppended();
+        for (Loan l : changedLoans) loanModel.rowChanged(store.getLoanColumns().rowOf(l.getLoanId()));
+
+        if (paymentsApplied) paymentModel.syncAppended();
+        updateDashboard();
+    }
+
+    private void updateDashboard() {
+        LoanColumns book = store.getLoanColumns();
+        customersStat.setText(String.valueOf(store.getCustomerCount()));
+        loansStat.setText(String.valueOf(store.getLoanCount()));
+        outstandingStat.setText("PKR " + Money.format(book.sumBalance()));
+        loanGraph.repaint();
+    }
+
+    // Re-reads every table from the store; queued store events are applied first so none are lost
+    private void refreshAll() {
+        applyStoreEvents();
+        customerModel.reload();
+        loanModel.reload();
+        paymentModel.showLoan(null);
+        updateDashboard();
+    }
+
     private JPanel createTopBar() {
         JPanel top = new JPanel(new BorderLayout());
         top.setBackground(new Color(25, 118, 210));
@@ -597,9 +846,6 @@ public class MainAppGUI {
     }
 
     private void showCard(String id) {
-        if ("customers".equals(id)) refreshCustomerTable();
-        if ("loans".equals(id)) refreshLoanTable();
-        if ("payments".equals(id)) refreshPaymentTable();
         cardLayout.show(contentPanel, id);
     }
 
@@ -624,10 +870,12 @@ public class MainAppGUI {
 
         JPanel stats = new JPanel(new GridLayout(1,3,15,0));
         stats.setOpaque(false);
-        stats.add(makeStatCard("Total Customers", String.valueOf(store.getCustomers().size()), new Color(33, 150, 243)));
-        stats.add(makeStatCard("Active Loans", String.valueOf(store.getLoans().size()), new Color(76, 175, 80)));
-        double outstanding = store.getLoans().stream().mapToDouble(Loan::getBalance).sum();
-        stats.add(makeStatCard("Outstanding Amount", String.format("PKR %.2f", outstanding), new Color(156, 39, 176)));
+        customersStat = new JLabel();
+        loansStat = new JLabel();
+        outstandingStat = new JLabel();
+        stats.add(makeStatCard("Total Customers", customersStat, new Color(33, 150, 243)));
+        stats.add(makeStatCard("Active Loans", loansStat, new Color(76, 175, 80)));
+        stats.add(makeStatCard("Outstanding Amount", outstandingStat, new Color(156, 39, 176)));
 
         statsWrapper.add(stats, BorderLayout.CENTER);
 
@@ -642,7 +890,8 @@ public class MainAppGUI {
                 0, 0,
                 new Font("Segoe UI", Font.BOLD, 14)
         ));
-        graphPanel.add(new GraphPanel(store), BorderLayout.CENTER);
+        loanGraph = new GraphPanel(store);
+        graphPanel.add(loanGraph, BorderLayout.CENTER);
 
         JPanel recentPanel = new JPanel(new BorderLayout());
         recentPanel.setBackground(Color.WHITE);
@@ -653,10 +902,10 @@ public class MainAppGUI {
                 new Font("Segoe UI", Font.BOLD, 14)
         ));
 
-        DefaultListModel<String> lm = new DefaultListModel<>();
+        recentLoans = new DefaultListModel<>();
         List<Loan> loans = store.getLoans();
-        for (int i = Math.max(0, loans.size()-8); i < loans.size(); i++) lm.addElement(loans.get(i).toString());
-        JList<String> list = new JList<>(lm);
+        for (int i = Math.max(0, loans.size()-8); i < loans.size(); i++) recentLoans.addElement(loans.get(i).toString());
+        JList<String> list = new JList<>(recentLoans);
         list.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         list.setBorder(new EmptyBorder(8,8,8,8));
         recentPanel.add(new JScrollPane(list), BorderLayout.CENTER);
@@ -667,10 +916,11 @@ public class MainAppGUI {
         center.add(statsWrapper, BorderLayout.NORTH);
         center.add(bottom, BorderLayout.CENTER);
         p.add(center, BorderLayout.CENTER);
+        updateDashboard();
         return p;
     }
 
-    private JPanel makeStatCard(String label, String value, Color bg) {
+    private JPanel makeStatCard(String label, JLabel v, Color bg) {
         JPanel p = new JPanel(new BorderLayout());
         p.setBackground(bg);
         p.setBorder(BorderFactory.createCompoundBorder(
@@ -684,7 +934,6 @@ public class MainAppGUI {
         l.setFont(new Font("Segoe UI", Font.BOLD, 11));
         l.setHorizontalAlignment(SwingConstants.CENTER);
 
-        JLabel v = new JLabel(value, SwingConstants.CENTER);
         v.setFont(new Font("Segoe UI", Font.BOLD, 16));
         v.setForeground(Color.WHITE);
         v.setHorizontalAlignment(SwingConstants.CENTER);
@@ -708,14 +957,10 @@ public class MainAppGUI {
             int w = getWidth(), h = getHeight();
             g.setColor(new Color(245,245,245));
             g.fillRect(0,0,w,h);
-            int p=0,b=0,e=0;
-            for (Loan l : store.getLoans()) {
-                switch (l.getLoanType()) {
-                    case "PERSONAL": p++; break;
-                    case "BUSINESS": b++; break;
-                    case "EDUCATION": e++; break;
-                }
-            }
+            LoanColumns book = store.getLoanColumns();
+            int p = book.countByType(LoanColumns.TYPE_PERSONAL);
+            int b = book.countByType(LoanColumns.TYPE_BUSINESS);
+            int e = book.countByType(LoanColumns.TYPE_EDUCATION);
             int total = Math.max(1, p+b+e);
             int barW = Math.max(20, w/12);
             int baseline = h - 50;
@@ -741,6 +986,154 @@ public class MainAppGUI {
         }
     }
 
+    /*
+     * Table models over the store's immutable list views. Nothing is copied or
+     * formatted up front: JTable asks for the cells of the rows it paints, so
+     * opening a tab costs the same for ten rows as for a million. Store events
+     * are applied by swapping in the latest view and firing the matching
+     * row-level change.
+     */
+    private abstract static class StoreTableModel<T> extends AbstractTableModel {
+        private final String[] columns;
+        protected List<T> rows = List.of();
+
+        StoreTableModel(String[] columns) {
+            this.columns = columns;
+        }
+
+        // Current view of the rows; called on the EDT
+        protected abstract List<T> fetch();
+
+        protected abstract Object value(T row, int column);
+
+        void reload() {
+            rows = fetch();
+            fireTableDataChanged();
+        }
+
+        // Picks up rows appended since the last sync; anything else re-reads the table
+        void syncAppended() {
+            int before = rows.size();
+            rows = fetch();
+            if (rows.size() > before) fireTableRowsInserted(before, rows.size() - 1);
+            else if (rows.size() < before) fireTableDataChanged();
+        }
+
+        void rowChanged(int row) {
+            if (row >= 0 && row < rows.size()) fireTableRowsUpdated(row, row);
+        }
+
+        T rowAt(int row) { return rows.get(row); }
+        int indexOf(T item) { return rows.indexOf(item); }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return columns.length; }
+        @Override public String getColumnName(int column) { return columns[column]; }
+        @Override public Object getValueAt(int row, int column) { return value(rows.get(row), column); }
+    }
+
+    private static class CustomerTableModel extends StoreTableModel<Customer> {
+        private final DataStore store;
+
+        CustomerTableModel(DataStore store) {
+            super(new String[] {"ID", "Name", "CNIC", "Phone", "Email", "Address", "Actions"});
+            this.store = store;
+            rows = fetch();
+        }
+
+        @Override protected List<Customer> fetch() { return store.getCustomers(); }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 6;
+        }
+
+        @Override
+        protected Object value(Customer c, int column) {
+            switch (column) {
+                case 0: return c.getCustomerId();
+                case 1: return c.getName();
+                case 2: return c.getCnic();
+                case 3: return c.getPhoneNumber();
+                case 4: return c.getEmail();
+                case 5: return c.getAddress();
+                default: return "";
+            }
+        }
+    }
+
+    // Loans are never removed, so a loan's row is its position in the loan book
+    private static class LoanTableModel extends StoreTableModel<Loan> {
+        private final DataStore store;
+
+        LoanTableModel(DataStore store) {
+            super(new String[] {
+                    "Loan ID","Type","Customer ID","Principal","Interest",
+                    "Duration(m)","Remaining Balance","Penalty Due","Paid Amount","Last Payment Date",
+                    "Installments","Monthly Installment","Issue Date","Due Date","Status"
+            });
+            this.store = store;
+            rows = fetch();
+        }
+
+        @Override protected List<Loan> fetch() { return store.getLoans(); }
+
+        @Override
+        protected Object value(Loan l, int column) {
+            switch (column) {
+                case 0: return l.getLoanId();
+                case 1: return l.getLoanType();
+                case 2: return l.getCustomerId();
+                case 3: return String.format("%.2f", l.getPrincipal());
+                case 4: return String.format("%.2f", l.calculateTotalPayable() - l.getPrincipal());
+                case 5: return l.getDurationMonths();
+                case 6: return String.format("%.2f", l.getBalance());
+                case 7: return Money.format(l.getPenaltyDueMinor());
+                case 8: return String.format("%.2f", store.getTotalPaidForLoan(l.getLoanId()));
+                case 9: {
+                    LocalDate lastPaid = store.getLastPaymentDateForLoan(l.getLoanId());
+                    return lastPaid != null ? lastPaid.toString() : "-";
+                }
+                case 10: return l.isInstallment() ? String.valueOf(l.getDurationMonths()) : "No";
+                case 11: return l.isInstallment() ? Money.format(l.getInstallmentMinor()) : "-";
+                case 12: return l.getIssueDate();
+                case 13: return l.getDueDate();
+                default: return l.getStatus();
+            }
+        }
+    }
+
+    private static class PaymentTableModel extends StoreTableModel<Payment> {
+        private final DataStore store;
+        private String loanId;   // loan whose payments are shown, or null for all
+
+        PaymentTableModel(DataStore store) {
+            super(new String[] {"Payment ID","Loan ID","Amount","Date"});
+            this.store = store;
+            rows = fetch();
+        }
+
+        @Override
+        protected List<Payment> fetch() {
+            return loanId == null ? store.getPayments() : store.getPaymentsForLoan(loanId);
+        }
+
+        void showLoan(String loanId) {
+            this.loanId = loanId;
+            reload();
+        }
+
+        @Override
+        protected Object value(Payment p, int column) {
+            switch (column) {
+                case 0: return p.getPaymentId();
+                case 1: return p.getLoanId();
+                case 2: return String.format("%.2f", p.getAmountPaid());
+                default: return p.getDate();
+            }
+        }
+    }
+
     private JPanel buildCustomersPanel() {
         JPanel p = new JPanel(new BorderLayout());
         p.setBorder(new EmptyBorder(15,15,15,15));
@@ -777,13 +1170,7 @@ public class MainAppGUI {
 
         p.add(topPanel, BorderLayout.NORTH);
 
-        String[] cols = {"ID", "Name", "CNIC", "Phone", "Email", "Address", "Actions"};
-        customerModel = new DefaultTableModel(cols, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 6;
-            }
-        };
+        customerModel = new CustomerTableModel(store);
         JTable table = new JTable(customerModel);
         table.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
@@ -804,20 +1191,8 @@ public class MainAppGUI {
                 return;
             }
 
-            boolean found = false;
-            for (int i = 0; i < table.getRowCount(); i++) {
-                String name = table.getValueAt(i, 1).toString().toLowerCase();
-                if (name.contains(searchText)) {
-                    table.setRowSelectionInterval(i, i);
-                    table.scrollRectToVisible(table.getCellRect(i, 0, true));
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                JOptionPane.showMessageDialog(frame, "No records found for: " + searchField.getText(), "Search Result", JOptionPane.INFORMATION_MESSAGE);
-            }
+            findRow(table, searchField.getText(), customerModel.rows,
+                    c -> c.getName().toLowerCase().contains(searchText));
         });
 
         p.add(new JScrollPane(table), BorderLayout.CENTER);
@@ -906,21 +1281,21 @@ public class MainAppGUI {
             }
             String id = generateId("C");
             Customer cst = new Customer(id, name, cnicF.getText().trim(), emailF.getText().trim(), addrF.getText().trim(), phoneF.getText().trim());
-            if (store.addCustomer(cst)) {
-                refreshCustomerTable();
-                nameF.setText("");
-                cnicF.setText("");
-                phoneF.setText("");
-                emailF.setText("");
-                addrF.setText("");
-                JOptionPane.showMessageDialog(frame, "Customer added: " + cst.getCustomerId(), "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(frame, "Invalid data! Check CNIC, Phone, or Email.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runTask("Adding customer", progress -> store.addCustomer(cst), added -> {
+                if (added) {
+                    nameF.setText("");
+                    cnicF.setText("");
+                    phoneF.setText("");
+                    emailF.setText("");
+                    addrF.setText("");
+                    JOptionPane.showMessageDialog(frame, "Customer added: " + cst.getCustomerId(), "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(frame, "Invalid data! Check CNIC, Phone, or Email.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
         });
 
         p.add(form, BorderLayout.EAST);
-        refreshCustomerTable();
         return p;
     }
 
@@ -990,18 +1365,9 @@ public class MainAppGUI {
         }
     }
 
-    private void refreshCustomerTable() {
-        customerModel.setRowCount(0);
-        for(Customer c : store.getCustomers()) {
-            customerModel.addRow(new Object[]{
-                    c.getCustomerId(), c.getName(), c.getCnic(), c.getPhoneNumber(), c.getEmail(), c.getAddress(), ""
-            });
-        }
-    }
-
     private void editCustomerRow(int row) {
         if(row<0 || row>=customerModel.getRowCount()) return;
-        String id = (String) customerModel.getValueAt(row, 0);
+        String id = customerModel.rowAt(row).getCustomerId();
         Customer c = store.findCustomerById(id);
         if(c==null) return;
 
@@ -1020,24 +1386,22 @@ public class MainAppGUI {
 
         int result = JOptionPane.showConfirmDialog(frame, panel, "Edit Customer " + id, JOptionPane.OK_CANCEL_OPTION);
         if(result == JOptionPane.OK_OPTION) {
-            if(store.editCustomer(id, nameF.getText(), cnicF.getText(), emailF.getText(), addrF.getText(), phoneF.getText())) {
-                refreshCustomerTable();
-            } else {
-                JOptionPane.showMessageDialog(frame, "Invalid data! Check CNIC, Phone, or Email.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runTask("Saving customer",
+                    progress -> store.editCustomer(id, nameF.getText(), cnicF.getText(), emailF.getText(), addrF.getText(), phoneF.getText()),
+                    saved -> {
+                        if (!saved) JOptionPane.showMessageDialog(frame, "Invalid data! Check CNIC, Phone, or Email.", "Error", JOptionPane.ERROR_MESSAGE);
+                    });
         }
     }
 
     private void deleteCustomerRow(int row) {
         if(row<0 || row>=customerModel.getRowCount()) return;
-        String id = (String) customerModel.getValueAt(row, 0);
+        String id = customerModel.rowAt(row).getCustomerId();
         int confirm = JOptionPane.showConfirmDialog(frame, "Delete customer " + id + "?", "Confirm", JOptionPane.YES_NO_OPTION);
         if(confirm == JOptionPane.YES_OPTION) {
-            if(store.deleteCustomer(id)) {
-                refreshCustomerTable();
-            } else {
-                JOptionPane.showMessageDialog(frame, "Could not delete customer!", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runTask("Deleting customer", progress -> store.deleteCustomer(id), deleted -> {
+                if (!deleted) JOptionPane.showMessageDialog(frame, "Could not delete customer!", "Error", JOptionPane.ERROR_MESSAGE);
+            });
         }
     }
 
@@ -1077,15 +1441,7 @@ public class MainAppGUI {
 
         p.add(topPanel, BorderLayout.NORTH);
 
-        String[] loanCols = {
-                "Loan ID","Type","Customer ID","Principal","Interest",
-                "Duration(m)","Remaining Balance","Paid Amount","Last Payment Date",
-                "Installments","EMI","Issue Date","Due Date","Status"
-        };
-        loanModel = new DefaultTableModel(loanCols, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        loanModel = new LoanTableModel(store);
         JTable table = new JTable(loanModel);
         table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
@@ -1096,7 +1452,7 @@ public class MainAppGUI {
         table.setGridColor(new Color(224, 224, 224));
         table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
 
-        table.getColumnModel().getColumn(0).setPreferredWidth(100);
+        table.getColumnModel().getColumn(0).setPreferredWidth(260);
         table.getColumnModel().getColumn(1).setPreferredWidth(100);
         table.getColumnModel().getColumn(2).setPreferredWidth(110);
         table.getColumnModel().getColumn(3).setPreferredWidth(90);
@@ -1107,9 +1463,9 @@ public class MainAppGUI {
         table.getColumnModel().getColumn(8).setPreferredWidth(140);
         table.getColumnModel().getColumn(9).setPreferredWidth(100);
         table.getColumnModel().getColumn(10).setPreferredWidth(80);
-        table.getColumnModel().getColumn(11).setPreferredWidth(100);
+        table.getColumnModel().getColumn(11).setPreferredWidth(130);
         table.getColumnModel().getColumn(12).setPreferredWidth(100);
-        table.getColumnModel().getColumn(13).setPreferredWidth(80);
+        table.getColumnModel().getColumn(14).setPreferredWidth(80);
 
         searchBtn.addActionListener(e -> {
             String searchText = searchField.getText().trim();
@@ -1118,23 +1474,12 @@ public class MainAppGUI {
                 return;
             }
 
-            boolean found = false;
-            for (int i = 0; i < table.getRowCount(); i++) {
-                String customerId = table.getValueAt(i, 2).toString();
-                Customer cust = store.findCustomerById(customerId);
-
-                if (customerId.toLowerCase().contains(searchText.toLowerCase()) ||
-                        (cust != null && cust.getName().toLowerCase().contains(searchText.toLowerCase()))) {
-                    table.setRowSelectionInterval(i, i);
-                    table.scrollRectToVisible(table.getCellRect(i, 0, true));
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                JOptionPane.showMessageDialog(frame, "No records found for: " + searchField.getText(), "Search Result", JOptionPane.INFORMATION_MESSAGE);
-            }
+            String query = searchText.toLowerCase();
+            findRow(table, searchField.getText(), loanModel.rows, l -> {
+                Customer cust = store.findCustomerById(l.getCustomerId());
+                return l.getCustomerId().toLowerCase().contains(query) ||
+                        (cust != null && cust.getName().toLowerCase().contains(query));
+            });
         });
 
         JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
@@ -1237,60 +1582,23 @@ public class MainAppGUI {
             else
                 loan = new EducationLoan(id, cid, amt, months, LocalDate.now(), installment);
 
-            store.addLoan(loan);
-            refreshLoanTable();
-            JOptionPane.showMessageDialog(frame, "Loan issued: " + id + "\nTotal payable (approx): "
-                    + String.format("%.2f", loan.getBalance()), "Success", JOptionPane.INFORMATION_MESSAGE);
+            runTask("Issuing loan", progress -> store.addLoan(loan), issued -> {
+                if (!issued) {
+                    JOptionPane.showMessageDialog(frame, "Loan " + id + " already exists.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                JOptionPane.showMessageDialog(frame, "Loan issued: " + id + "\nTotal payable (approx): "
+                        + String.format("%.2f", loan.getBalance()), "Success", JOptionPane.INFORMATION_MESSAGE);
 
-            custIdF.setText(""); amountF.setText(""); durF.setText(""); installmentBox.setSelected(false);
+                custIdF.setText(""); amountF.setText(""); durF.setText(""); installmentBox.setSelected(false);
+            });
         });
 
         split.setRightComponent(form);
         p.add(split, BorderLayout.CENTER);
-
-        refreshLoanTable();
         return p;
     }
 
-    private void refreshLoanTable() {
-        loanModel.setRowCount(0);
-        for (Loan l : store.getLoans()) {
-            double interest = l.calculateTotalPayable() - l.getPrincipal();
-            double paid = store.getTotalPaidForLoan(l.getLoanId());
-            LocalDate lastPaid = store.getLastPaymentDateForLoan(l.getLoanId());
-            String lastPaidStr = lastPaid != null ? lastPaid.toString() : "-";
-
-            String installments = "No";
-            String emiStr = "-";
-
-            if (l instanceof PersonalLoan pl && pl.isInstallment()) {
-                installments = String.valueOf(pl.getDurationMonths());
-                emiStr = String.format("%.2f", pl.getEmi());
-            } else if (l instanceof BusinessLoan bl && bl.isInstallment()) {
-                installments = String.valueOf(bl.getDurationMonths());
-                emiStr = String.format("%.2f", bl.getEmi());
-            } else if (l instanceof EducationLoan el && el.isInstallment()) {
-                installments = String.valueOf(el.getDurationMonths());
-                emiStr = String.format("%.2f", el.getEmi());
-            }
-
-            loanModel.addRow(new Object[] {
-                    l.getLoanId(), l.getLoanType(), l.getCustomerId(),
-                    String.format("%.2f", l.getPrincipal()),
-                    String.format("%.2f", interest),
-                    l.getDurationMonths(),
-                    String.format("%.2f", l.getBalance()),
-                    String.format("%.2f", paid),
-                    lastPaidStr,
-                    installments,
-                    emiStr,
-                    l.getIssueDate(),
-                    l.getDueDate(),
-                    l.getStatus()
-            });
-        }
-    }
-
     private JPanel buildPaymentsPanel() {
         JPanel p = new JPanel(new BorderLayout());
         p.setBorder(new EmptyBorder(15,15,15,15));
@@ -1327,10 +1635,7 @@ public class MainAppGUI {
 
         p.add(topPanel, BorderLayout.NORTH);
 
-        String[] cols = {"Payment ID","Loan ID","Amount","Date"};
-        paymentModel = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        paymentModel = new PaymentTableModel(store);
         JTable table = new JTable(paymentModel);
         table.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
@@ -1347,20 +1652,8 @@ public class MainAppGUI {
                 return;
             }
 
-            boolean found = false;
-            for (int i = 0; i < table.getRowCount(); i++) {
-                String loanId = table.getValueAt(i, 1).toString().toLowerCase();
-                if (loanId.contains(searchText)) {
-                    table.setRowSelectionInterval(i, i);
-                    table.scrollRectToVisible(table.getCellRect(i, 0, true));
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                JOptionPane.showMessageDialog(frame, "No records found for: " + searchField.getText(), "Search Result", JOptionPane.INFORMATION_MESSAGE);
-            }
+            findRow(table, searchField.getText(), paymentModel.rows,
+                    pay -> pay.getLoanId().toLowerCase().contains(searchText));
         });
 
         p.add(new JScrollPane(table), BorderLayout.CENTER);
@@ -1429,14 +1722,15 @@ public class MainAppGUI {
 
             String pid = generateId("P");
             Payment pm = new Payment(pid, loanId, amt, LocalDate.now());
-            store.recordPaymentAndUpdateLoan(pm);
-
-            refreshPaymentTable();
-            refreshLoanTable();
-
-            JOptionPane.showMessageDialog(frame, "Payment recorded: " + pid, "Success", JOptionPane.INFORMATION_MESSAGE);
+            runTask("Recording payment", progress -> store.recordPaymentAndUpdateLoan(pm), recorded -> {
+                if (!recorded) {
+                    JOptionPane.showMessageDialog(frame, "Payment " + pid + " was already posted.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                JOptionPane.showMessageDialog(frame, "Payment recorded: " + pid, "Success", JOptionPane.INFORMATION_MESSAGE);
 
-            loanField.setText(""); amtField.setText("");
+                loanField.setText(""); amtField.setText("");
+            });
         });
 
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -1445,42 +1739,43 @@ public class MainAppGUI {
         viewLoan.setToolTipText("Loan ID to view payments");
         JButton viewBtn = new JButton("View Payments");
         JButton refreshBtn = new JButton("Refresh All");
+        JButton importBtn = new JButton("Post Payment Batch...");
 
         viewBtn.addActionListener(e -> {
             String lid = viewLoan.getText().trim();
             if (lid.isEmpty()) { JOptionPane.showMessageDialog(frame, "Enter loan ID.", "Validation", JOptionPane.WARNING_MESSAGE); return; }
-            List<Payment> list = store.getPaymentsForLoan(lid);
-            paymentModel.setRowCount(0);
-            for (Payment pay : list)
-                paymentModel.addRow(new Object[]{pay.getPaymentId(), pay.getLoanId(), String.format("%.2f", pay.getAmountPaid()), pay.getDate()});
+            paymentModel.showLoan(lid);
         });
 
-        refreshBtn.addActionListener(e -> {
-            refreshPaymentTable();
-            refreshLoanTable();
+        refreshBtn.addActionListener(e -> refreshAll());
+
+        importBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Post payment batch (PaymentID,LoanID,Amount,Date)");
+            if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+            File file = chooser.getSelectedFile();
+            String errorFile = file.getAbsolutePath() + ".errors.csv";
+            runTask("Posting payments", progress -> {
+                BulkImporter importer = new BulkImporter(store);
+                importer.setProgressListener((read, imported, rejected) ->
+                        progress.update(imported + " imported, " + rejected + " rejected", read, 0));
+                return importer.postPayments(file.getAbsolutePath(), errorFile);
+            }, result -> {
+                String msg = "Payments: " + result;
+                if (result.getRejected() > 0) msg += "\nRejected rows written to " + errorFile;
+                JOptionPane.showMessageDialog(frame, msg, "Import", JOptionPane.INFORMATION_MESSAGE);
+            }, () -> JOptionPane.showMessageDialog(frame,
+                    "Posting cancelled. Batches posted before the cancel stay posted; posting the file again skips them.",
+                    "Import", JOptionPane.INFORMATION_MESSAGE));
         });
 
-        bottom.add(viewLoan); bottom.add(viewBtn); bottom.add(refreshBtn);
+        bottom.add(viewLoan); bottom.add(viewBtn); bottom.add(refreshBtn); bottom.add(importBtn);
 
         p.add(form, BorderLayout.EAST);
         p.add(bottom, BorderLayout.SOUTH);
-
-        refreshPaymentTable();
         return p;
     }
 
-    private void refreshPaymentTable() {
-        paymentModel.setRowCount(0);
-        for (Payment p : store.getPayments()) {
-            paymentModel.addRow(new Object[]{
-                    p.getPaymentId(),
-                    p.getLoanId(),
-                    String.format("%.2f", p.getAmountPaid()),
-                    p.getDate()
-            });
-        }
-    }
-
     private JPanel buildReportsPanel() {
         JPanel p = new JPanel(new BorderLayout());
         p.setBorder(new EmptyBorder(15,15,15,15));
@@ -1532,15 +1827,15 @@ public class MainAppGUI {
         custBtn.setBorder(new EmptyBorder(8, 15, 8, 15));
         custBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
 
-        loanSummaryBtn.addActionListener(e -> out.setText(reports.loanSummaryText()));
-        overdueBtn.addActionListener(e -> out.setText(reports.overdueText()));
+        loanSummaryBtn.addActionListener(e -> runTask("Loan summary", progress -> reports.loanSummaryText(), out::setText));
+        overdueBtn.addActionListener(e -> runTask("Overdue loans", progress -> reports.overdueText(), out::setText));
         custBtn.addActionListener(e -> {
             String id = custField.getText().trim();
             if (id.isEmpty()) {
                 JOptionPane.showMessageDialog(frame, "Customer ID required.", "Validation", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            out.setText(reports.customerReportText(id));
+            runTask("Customer report", progress -> reports.customerReportText(id), out::setText);
         });
 
         JButton exportLoansCsvBtn = new JButton("📥 Export Loans CSV");
@@ -1564,28 +1859,29 @@ public class MainAppGUI {
         exportCustomerCsvBtn.setBorder(new EmptyBorder(10, 20, 10, 20));
         exportCustomerCsvBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
 
+        JButton exportScheduleCsvBtn = new JButton("📥 Export Schedules CSV");
+        exportScheduleCsvBtn.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        exportScheduleCsvBtn.setBackground(new Color(76, 175, 80));
+        exportScheduleCsvBtn.setForeground(Color.WHITE);
+        exportScheduleCsvBtn.setBorder(new EmptyBorder(10, 20, 10, 20));
+        exportScheduleCsvBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+
         exportLoansCsvBtn.addActionListener(e -> {
             File file = promptAndChooseFile("loans_summary.csv");
             if (file == null) return;
-            boolean ok = reports.exportLoanSummaryCSV(file.getAbsolutePath());
-            if (ok) {
-                JOptionPane.showMessageDialog(frame, "Saved: " + file.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
-                tryOpenFile(file);
-            } else {
-                JOptionPane.showMessageDialog(frame, "Failed to save file.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            export("Exporting loans", file, (r, path) -> r.exportLoanSummaryCSV(path), "Failed to save file.");
         });
 
         exportOverdueCsvBtn.addActionListener(e -> {
             File file = promptAndChooseFile("overdue_loans.csv");
             if (file == null) return;
-            boolean ok = reports.exportOverdueCSV(file.getAbsolutePath());
-            if (ok) {
-                JOptionPane.showMessageDialog(frame, "Saved: " + file.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
-                tryOpenFile(file);
-            } else {
-                JOptionPane.showMessageDialog(frame, "Failed to save file.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            export("Exporting overdue loans", file, (r, path) -> r.exportOverdueCSV(path), "Failed to save file.");
+        });
+
+        exportScheduleCsvBtn.addActionListener(e -> {
+            File file = promptAndChooseFile("amortization_schedules.csv");
+            if (file == null) return;
+            export("Exporting schedules", file, (r, path) -> r.exportAmortizationCSV(path), "Failed to save file.");
         });
 
         exportCustomerCsvBtn.addActionListener(e -> {
@@ -1596,13 +1892,8 @@ public class MainAppGUI {
             }
             File file = promptAndChooseFile("customer_" + id + ".csv");
             if (file == null) return;
-            boolean ok = reports.exportCustomerCSV(id, file.getAbsolutePath());
-            if (ok) {
-                JOptionPane.showMessageDialog(frame, "Saved: " + file.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
-                tryOpenFile(file);
-            } else {
-                JOptionPane.showMessageDialog(frame, "Failed to save file. (Customer may not exist or IO error)", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            export("Exporting customer", file, (r, path) -> r.exportCustomerCSV(id, path),
+                    "Failed to save file. (Customer may not exist or IO error)");
         });
 
         controls.add(loanSummaryBtn);
@@ -1622,6 +1913,7 @@ public class MainAppGUI {
         exportPanel.add(exportLoansCsvBtn);
         exportPanel.add(exportOverdueCsvBtn);
         exportPanel.add(exportCustomerCsvBtn);
+        exportPanel.add(exportScheduleCsvBtn);
 
         JPanel north = new JPanel(new BorderLayout());
         north.setOpaque(false);
@@ -1633,6 +1925,26 @@ public class MainAppGUI {
         return p;
     }
 
+    private interface Export {
+        boolean write(ReportGenerator reports, String path);
+    }
+
+    // Writes an export on a worker thread with its own ReportGenerator, so its progress goes to this task's dialog
+    private void export(String title, File file, Export export, String failure) {
+        runTask(title, progress -> {
+            ReportGenerator r = new ReportGenerator(store);
+            r.setProgressListener((done, total) -> progress.update(title + "...", done, total));
+            return export.write(r, file.getAbsolutePath());
+        }, ok -> {
+            if (ok) {
+                JOptionPane.showMessageDialog(frame, "Saved: " + file.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
+                tryOpenFile(file);
+            } else {
+                JOptionPane.showMessageDialog(frame, failure, "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, () -> { });
+    }
+
     private File promptAndChooseFile(String suggestedName) {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Save CSV");
@@ -1660,7 +1972,8 @@ public class MainAppGUI {
     }
 
     private String generateId(String prefix) {
-        return prefix + UUID.randomUUID().toString().replace("-", "").substring(0,8).toUpperCase();
+        // The full 128-bit UUID: payment IDs are a uniqueness key, and 8 hex digits collide within a few million
+        return prefix + UUID.randomUUID().toString().replace("-", "").toUpperCase();
     }
 }
 
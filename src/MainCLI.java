@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Headless entry point for cron jobs and scripted runs. Works on the data files
+ * in the current directory like the GUI does, but only touches DataStore and
+ * ReportGenerator, so no Swing classes are loaded and no display is needed.
+ *
+ * Exit status is 0 on success, 1 when the command failed and 2 on bad usage.
+ */
+public class MainCLI {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java MainCLI <command> [args]",
+            "",
+            "  import customers|loans|payments <file> [errorFile]",
+            "                           bulk import a CSV in the data file layout; imported payments",
+            "                           are history and leave loan balances as imported;",
+            "                           rejected rows go to errorFile (default <file>.errors.csv)",
+            "  post-payments <file> [errorFile]",
+            "                           post a payment batch (PaymentID,LoanID,Amount,Date);",
+            "                           payments already posted are skipped, so reruns are safe",
+            "  sweep-overdue [yyyy-mm-dd]",
+            "                           flag loans that fell due before the date (default today)",
+            "  eod [yyyy-mm-dd]         end-of-day run: overdue flags, accrual and aging (default today)",
+            "  report summary|overdue|full",
+            "  report customer <customerId>",
+            "                           print a report to standard output",
+            "  export loans|overdue|schedules <file>",
+            "  export customer <customerId> <file>",
+            "                           write a report as CSV",
+            "  compact                  fold the journal into the data files");
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        if (args.length == 0 || !isCommand(args[0])) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        long start = System.currentTimeMillis();
+        DataStore store = new DataStore();
+        System.err.printf("Loaded %d customers, %d loans, %d payments in %d ms%n",
+                store.getCustomerCount(), store.getLoanCount(), store.getPaymentCount(),
+                System.currentTimeMillis() - start);
+        try {
+            return execute(store, args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            store.close();
+        }
+    }
+
+    private static boolean isCommand(String name) {
+        switch (name) {
+            case "import": case "post-payments": case "sweep-overdue": case "eod":
+            case "report": case "export": case "compact":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int execute(DataStore store, String[] args) throws IOException {
+        ReportGenerator reports = new ReportGenerator(store);
+        switch (args[0]) {
+            case "import":
+                return importFile(store, arg(args, 1), arg(args, 2), optional(args, 3));
+            case "post-payments":
+                return importFile(store, "post-payments", arg(args, 1), optional(args, 2));
+            case "sweep-overdue": {
+                LocalDate today = optional(args, 1) == null ? LocalDate.now() : date(args[1]);
+                List<Loan> flagged = store.sweepOverdue(today);
+                store.sync().join();
+                for (Loan l : flagged) System.out.println(l.getLoanId());
+                System.err.println(flagged.size() + " loan(s) became overdue as of " + today);
+                return 0;
+            }
+            case "eod": {
+                LocalDate businessDate = optional(args, 1) == null ? LocalDate.now() : date(args[1]);
+                System.out.print(new EndOfDayJob(store).run(businessDate));
+                return 0;
+            }
+            case "report":
+                return report(store, reports, args);
+            case "export":
+                return export(store, reports, args);
+            case "compact":
+                store.compact().join();
+                System.err.println("Compacted data files");
+                return 0;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+    }
+
+    private static int importFile(DataStore store, String kind, String file, String errorFile) throws IOException {
+        if (errorFile == null) errorFile = file + ".errors.csv";
+        BulkImporter importer = new BulkImporter(store);
+        importer.setProgressListener((read, imported, rejected) ->
+                System.err.printf("  %d rows read, %d imported, %d rejected%n", read, imported, rejected));
+
+        BulkImporter.Result result;
+        switch (kind) {
+            case "customers": result = importer.importCustomers(file, errorFile); break;
+            case "loans":     result = importer.importLoans(file, errorFile); break;
+            case "payments":  result = importer.importPayments(file, errorFile); break;
+            case "post-payments": result = importer.postPayments(file, errorFile); break;
+            default: throw new IllegalArgumentException("Unknown import type: " + kind);
+        }
+        System.out.println(kind + ": " + result);
+        if (result.getRejected() > 0) System.out.println("Rejected rows written to " + errorFile);
+        return 0;
+    }
+
+    private static int report(DataStore store, ReportGenerator reports, String[] args) {
+        switch (arg(args, 1)) {
+            case "summary": System.out.print(reports.loanSummaryText()); break;
+            case "overdue": System.out.print(reports.overdueText()); break;
+            case "full":    System.out.print(reports.generateFullReport()); break;
+            case "customer":
+                String id = arg(args, 2);
+                if (store.findCustomerById(id) == null) {
+                    System.err.println("Customer not found: " + id);
+                    return 1;
+                }
+                System.out.print(reports.customerReportText(id));
+                break;
+            default: throw new IllegalArgumentException("Unknown report: " + args[1]);
+        }
+        return 0;
+    }
+
+    private static int export(DataStore store, ReportGenerator reports, String[] args) {
+        String file;
+        boolean ok;
+        switch (arg(args, 1)) {
+            case "loans":     ok = reports.exportLoanSummaryCSV(file = arg(args, 2)); break;
+            case "overdue":   ok = reports.exportOverdueCSV(file = arg(args, 2)); break;
+            case "schedules": ok = reports.exportAmortizationCSV(file = arg(args, 2)); break;
+            case "customer":  ok = reports.exportCustomerCSV(arg(args, 2), file = arg(args, 3)); break;
+            default: throw new IllegalArgumentException("Unknown export: " + args[1]);
+        }
+        if (!ok) {
+            System.err.println("Export failed: " + file);
+            return 1;
+        }
+        System.err.println("Exported to " + file);
+        return 0;
+    }
+
+    private static String arg(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing argument for " + args[0]);
+        return args[i];
+    }
+
+    private static String optional(String[] args, int i) {
+        return i < args.length ? args[i] : null;
+    }
+
+    private static LocalDate date(String s) {
+        try {
+            return LocalDate.parse(s);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + s);
+        }
+    }
+}
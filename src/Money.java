@@ -0,0 +1,71 @@
+/**
+ * Fixed-point money helpers. Amounts are carried as a {@code long} count of
+ * paisa (1/100 rupee), so sums and balances are exact and arithmetic never
+ * allocates. Doubles only appear at the edges: user input, display and the
+ * rate-based interest formulas, which are rounded to paisa once per result.
+ */
+public final class Money {
+    public static final long SCALE = 100;
+
+    private Money() {}
+
+    public static long of(double amount) { return Math.round(amount * SCALE); }
+
+    public static double toDouble(long minor) { return (double) minor / SCALE; }
+
+    // Scales an amount by a factor (e.g. a rate), rounding half up to the nearest paisa
+    public static long multiply(long minor, double factor) { return Math.round(minor * factor); }
+
+    public static String format(long minor) {
+        return append(new StringBuilder(24), minor).toString();
+    }
+
+    // Appends "1234.50" / "-0.05" style text without going through String.valueOf(double)
+    public static StringBuilder append(StringBuilder sb, long minor) {
+        if (minor < 0) {
+            sb.append('-');
+            minor = -minor;
+        }
+        long fraction = minor % SCALE;
+        sb.append(minor / SCALE).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    /**
+     * Parses a plain decimal such as "1500", "1500.5" or "-12.34" straight into
+     * paisa. Text with more than two decimals or an exponent (older files were
+     * written with String.valueOf(double), e.g. "1.2E7") goes through
+     * Double.parseDouble and is rounded once.
+     */
+    public static long parse(CharSequence s) {
+        int i = 0, len = s.length();
+        boolean negative = len > 0 && s.charAt(0) == '-';
+        if (negative || (len > 0 && s.charAt(0) == '+')) i++;
+        long units = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || fractionDigits >= 2 || digits >= 16) {
+                return of(Double.parseDouble(s.toString()));
+            }
+            digits++;
+            if (fractionDigits >= 0) {
+                fraction = fraction * 10 + (c - '0');
+                fractionDigits++;
+            } else {
+                units = units * 10 + (c - '0');
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("Not an amount: \"" + s + "\"");
+        if (fractionDigits == 1) fraction *= 10;
+        long minor = units * SCALE + fraction;
+        return negative ? -minor : minor;
+    }
+}
@@ -4,32 +4,48 @@ import java.util.Objects;
 public class Payment {
     private String paymentId;
     private String loanId;
-    private double amountPaid;
+    private long amountPaid; // paisa
     private LocalDate date;
 
     public Payment(String paymentId, String loanId, double amountPaid, LocalDate date) {
         this.paymentId = paymentId;
         this.loanId = loanId;
-        this.amountPaid = amountPaid;
+        this.amountPaid = Money.of(amountPaid);
         this.date = date;
     }
 
+    private Payment(String paymentId, String loanId, LocalDate date, long amountPaidMinor) {
+        this.paymentId = paymentId;
+        this.loanId = loanId;
+        this.amountPaid = amountPaidMinor;
+        this.date = date;
+    }
+
+    public static Payment ofMinor(String paymentId, String loanId, long amountPaidMinor, LocalDate date) {
+        return new Payment(paymentId, loanId, date, amountPaidMinor);
+    }
+
     public String getPaymentId() { return paymentId; }
     public String getLoanId() { return loanId; }
-    public double getAmountPaid() { return amountPaid; }
+    public double getAmountPaid() { return Money.toDouble(amountPaid); }
+    public long getAmountPaidMinor() { return amountPaid; }
     public LocalDate getDate() { return date; }
 
-    public String toCSV() { return String.join(",", paymentId, loanId, String.valueOf(amountPaid), date.toString()); }
+    public String toCSV() { return String.join(",", paymentId, loanId, Money.format(amountPaid), date.toString()); }
+
+    public static Payment fromCSV(String line) { return fromCSV(CsvCursor.of(line)); }
 
-    public static Payment fromCSV(String line) {
-        String[] p = line.split(",", -1);
-        if (p.length < 4) return null;
-        return new Payment(p[0], p[1], Double.parseDouble(p[2]), LocalDate.parse(p[3]));
+    public static Payment fromCSV(CsvCursor row) {
+        if (row.remainingFields() < 4) return null;
+        String paymentId = row.nextString();
+        String loanId = row.nextString();
+        long amount = row.nextMoney();
+        return new Payment(paymentId, loanId, row.nextDate(), amount);
     }
 
     @Override
     public String toString() {
-        return String.format("%s | Loan:%s | %.2f | %s", paymentId, loanId, amountPaid, date);
+        return String.format("%s | Loan:%s | %.2f | %s", paymentId, loanId, getAmountPaid(), date);
     }
 
     @Override
@@ -0,0 +1,142 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrency check for payment posting. Seeds a loan book in the current
+ * directory, then for each thread count posts payments against random loans
+ * from that many threads through recordPaymentAndUpdateLoan. After every round
+ * each loan's balance must have dropped by exactly what was posted to it, and
+ * after the last round a freshly loaded DataStore must show the same balances
+ * and payments. Prints throughput per thread count and its ratio to the
+ * first thread count. With -Dstress.minSpeedup=x the run also fails when the
+ * largest thread count that fits the available cores does not reach x times
+ * the first count's throughput.
+ *
+ * Writes the usual data files, so run it in an empty directory:
+ *   java PaymentStress [loans] [paymentsPerThread] [threadCounts...]
+ *
+ * Exit status is 0 when nothing was lost (and the speedup was met), 1 on a
+ * mismatch and 2 on bad usage.
+ */
+public class PaymentStress {
+    private static final String[] DATA_FILES = {"customers.csv", "loans.csv", "payments.csv", "journal.csv"};
+    private static final LocalDate ISSUE_DATE = LocalDate.of(2026, 1, 1);
+    private static final long PAYMENT_MINOR = 100;
+
+    public static void main(String[] args) throws Exception {
+        int loans = 20000;
+        int perThread = 100000;
+        int[] threadCounts = {1, 2, 4, 8};
+        try {
+            if (args.length > 0) loans = Integer.parseInt(args[0]);
+            if (args.length > 1) perThread = Integer.parseInt(args[1]);
+            if (args.length > 2) {
+                threadCounts = new int[args.length - 2];
+                for (int i = 2; i < args.length; i++) threadCounts[i - 2] = Integer.parseInt(args[i]);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: java PaymentStress [loans] [paymentsPerThread] [threadCounts...]");
+            System.exit(2);
+        }
+        for (String f : DATA_FILES) {
+            if (new File(f).exists()) {
+                System.err.println(f + " already exists; run PaymentStress in an empty directory");
+                System.exit(2);
+            }
+        }
+        System.exit(run(loans, perThread, threadCounts) ? 0 : 1);
+    }
+
+    static boolean run(int loanCount, int perThread, int[] threadCounts) throws Exception {
+        DataStore store = new DataStore();
+        String[] loanIds = seed(store, loanCount);
+        long[] expected = new long[loanCount];
+        for (int i = 0; i < loanCount; i++) expected[i] = store.findLoanById(loanIds[i]).getBalanceMinor();
+        boolean ok = true;
+        int cores = Runtime.getRuntime().availableProcessors();
+        double minSpeedup = Double.parseDouble(System.getProperty("stress.minSpeedup", "0"));
+        double baseRate = 0;
+        double checkedSpeedup = 0;
+        int checkedThreads = 0;
+
+        System.out.println(cores + " core(s) available");
+        System.out.println("Threads  Payments      ms   Payments/s  Speedup  Lost");
+        for (int threads : threadCounts) {
+            AtomicLongArray paid = new AtomicLongArray(loanCount);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "S" + threads + "-" + t + "-";
+                workers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < perThread; i++) {
+                        int loan = random.nextInt(loanCount);
+                        Payment p = new Payment(prefix + i, loanIds[loan], Money.toDouble(PAYMENT_MINOR), ISSUE_DATE.plusDays(1));
+                        if (store.recordPaymentAndUpdateLoan(p)) paid.addAndGet(loan, PAYMENT_MINOR);
+                    }
+                }));
+            }
+            for (Future<?> w : workers) w.get();
+            long nanos = System.nanoTime() - start;
+            pool.shutdown();
+
+            int lost = 0;
+            for (int i = 0; i < loanCount; i++) {
+                expected[i] -= paid.get(i);
+                if (store.findLoanById(loanIds[i]).getBalanceMinor() != expected[i]) lost++;
+            }
+            long payments = (long) threads * perThread;
+            double rate = payments * 1e9 / nanos;
+            if (baseRate == 0) baseRate = rate;
+            double speedup = rate / baseRate;
+            if (threads <= cores && threads > checkedThreads) {
+                checkedThreads = threads;
+                checkedSpeedup = speedup;
+            }
+            System.out.printf("%7d %9d %7d %12.0f  %6.2fx  %d%n", threads, payments, nanos / 1_000_000,
+                    rate, speedup, lost);
+            ok &= lost == 0;
+        }
+
+        if (minSpeedup > 0) {
+            boolean scaled = checkedSpeedup >= minSpeedup;
+            System.out.printf("Speedup at %d thread(s): %.2fx, required %.2fx%s%n", checkedThreads, checkedSpeedup,
+                    minSpeedup, scaled ? "" : " - FAILED");
+            ok &= scaled;
+        }
+
+        store.sync().join();
+        int paymentCount = store.getPaymentCount();
+        store.close();
+
+        DataStore reloaded = new DataStore();
+        int mismatched = 0;
+        for (int i = 0; i < loanCount; i++) {
+            Loan l = reloaded.findLoanById(loanIds[i]);
+            if (l == null || l.getBalanceMinor() != expected[i]) mismatched++;
+        }
+        boolean samePayments = reloaded.getPaymentCount() == paymentCount;
+        reloaded.close();
+        System.out.printf("Reload: %d of %d loans differ, %d payments (expected %d)%n",
+                mismatched, loanCount, reloaded.getPaymentCount(), paymentCount);
+        return ok && mismatched == 0 && samePayments;
+    }
+
+    // One customer with loanCount installment loans, large enough that no payment round closes one
+    private static String[] seed(DataStore store, int loanCount) {
+        store.addCustomer(new Customer("CSTRESS", "Stress Test", "3520100000000", "stress@example.com", "-", "03000000000"));
+        String[] ids = new String[loanCount];
+        List<Loan> batch = new ArrayList<>(loanCount);
+        for (int i = 0; i < loanCount; i++) {
+            ids[i] = "LSTRESS" + i;
+            batch.add(new PersonalLoan(ids[i], "CSTRESS", 1_000_000, 12, ISSUE_DATE, true));
+        }
+        store.addLoans(batch);
+        store.sync().join();
+        return ids;
+    }
+}
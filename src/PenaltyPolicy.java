@@ -0,0 +1,50 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Late-payment penalty terms per loan type. An overdue loan is charged a daily
+ * percentage of its outstanding balance for every day past its due date, until
+ * the penalties charged reach a cap expressed as a percentage of the principal.
+ */
+public class PenaltyPolicy {
+
+    public static class Rule {
+        private final double dailyRatePercent;
+        private final double capPercent;
+
+        public Rule(double dailyRatePercent, double capPercent) {
+            if (dailyRatePercent < 0 || capPercent < 0) throw new IllegalArgumentException("Penalty rates must not be negative");
+            this.dailyRatePercent = dailyRatePercent;
+            this.capPercent = capPercent;
+        }
+
+        public double getDailyRatePercent() { return dailyRatePercent; }
+        public double getCapPercent() { return capPercent; }
+
+        // Penalty for the given number of overdue days, limited to what is left under the cap
+        long charge(Loan loan, long days) {
+            long room = Money.multiply(loan.getPrincipalMinor(), capPercent / 100.0) - loan.getPenaltyMinor();
+            if (days <= 0 || room <= 0) return 0;
+            return Math.min(room, Money.multiply(loan.getBalanceMinor(), dailyRatePercent / 100.0 * days));
+        }
+    }
+
+    private static final Rule NONE = new Rule(0, 0);
+
+    private final Map<String, Rule> rules = new HashMap<>();
+
+    public PenaltyPolicy() {
+        rules.put("PERSONAL", new Rule(0.05, 10));
+        rules.put("BUSINESS", new Rule(0.07, 15));
+        rules.put("EDUCATION", new Rule(0.02, 5));
+    }
+
+    public PenaltyPolicy set(String loanType, double dailyRatePercent, double capPercent) {
+        rules.put(loanType, new Rule(dailyRatePercent, capPercent));
+        return this;
+    }
+
+    public Rule ruleFor(String loanType) {
+        return rules.getOrDefault(loanType, NONE);
+    }
+}
@@ -1,38 +1,65 @@
+import java.io.File;
 import java.io.FileWriter;
+import java.io.InterruptedIOException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class ReportGenerator {
 
+    // Rows written so far out of the total; exports check for an interrupt at the same points
+    public interface ProgressListener {
+        void onProgress(long done, long total);
+    }
+
+    private static final int PROGRESS_EVERY = 4096;
+
     private DataStore store;
+    private ProgressListener listener = (done, total) -> { };
 
     public ReportGenerator(DataStore store) {
         this.store = store;
     }
 
-    // ------------------ 1. LOAN SUMMARY REPORT ------------------
-    public String loanSummaryText() {
-        List<Loan> loans = store.getLoans();
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
 
-        double totalLoaned = loans.stream()
-                .mapToDouble(Loan::getPrincipal)
-                .sum();
+    private void progress(long done, long total) throws InterruptedIOException {
+        if (done % PROGRESS_EVERY != 0 && done != total) return;
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Export cancelled");
+        listener.onProgress(done, total);
+    }
+
+    // A cancelled export leaves no partial file behind
+    private static boolean cancelled(String filePath) {
+        new File(filePath).delete();
+        return false;
+    }
 
-        double totalOutstanding = loans.stream()
-                .mapToDouble(Loan::getBalance)
-                .sum();
+    // ------------------ 1. LOAN SUMMARY REPORT ------------------
+    public String loanSummaryText() {
+        // Reports never post interest; they read the ledger as the last end-of-day run left it
+        LocalDate today = LocalDate.now();
+        InterestLedger ledger = store.getInterestLedger();
+        LoanColumns book = store.getLoanColumns();
 
-        double totalInterest = loans.stream()
-                .mapToDouble(Loan::calculateInterest)
-                .sum();
+        long totalLoaned = book.sumPrincipal();
+        long totalOutstanding = book.sumBalance();
+        long totalInterest = book.sumInterest();
+        long postedInterest = ledger.getTotalAccruedMinor();
+        long monthInterest = ledger.incomeBetween(today.withDayOfMonth(1), today);
 
         StringBuilder sb = new StringBuilder();
         sb.append("=========== LOAN SUMMARY REPORT ===========\n\n");
-        sb.append(String.format("Total Principal Issued:       %.2f\n", totalLoaned));
-        sb.append(String.format("Total Outstanding Balance:    %.2f\n", totalOutstanding));
-        sb.append(String.format("Total Interest Accrued:       %.2f\n", totalInterest));
-        sb.append(String.format("Number of Loans:              %d\n", loans.size()));
+        sb.append("Total Principal Issued:       ").append(Money.format(totalLoaned)).append("\n");
+        sb.append("Total Outstanding Balance:    ").append(Money.format(totalOutstanding)).append("\n");
+        sb.append("Total Interest Accrued:       ").append(Money.format(totalInterest)).append("\n");
+        // Ledger figures are as of the last end-of-day run (MainCLI eod)
+        LocalDate posted = ledger.getLastPostedDate();
+        sb.append("Interest Posted Through:      ").append(posted == null ? "no end-of-day run yet" : posted.toString()).append("\n");
+        sb.append("  Interest Earned To Date:    ").append(Money.format(postedInterest)).append("\n");
+        sb.append("  Interest Income This Month: ").append(Money.format(monthInterest)).append("\n");
+        sb.append(String.format("Number of Loans:              %d\n", book.size()));
         sb.append("\n===========================================\n");
 
         return sb.toString();
@@ -41,10 +68,8 @@ public class ReportGenerator {
     // ------------------ 2. OVERDUE LOAN REPORT ------------------
     public String overdueText() {
 
-        List<Loan> overdue = store.getLoans().stream()
-                .peek(l -> l.checkOverdue(LocalDate.now()))
-                .filter(l -> "OVERDUE".equals(l.getStatus()))
-                .collect(Collectors.toList());
+        store.sweepOverdue(LocalDate.now());
+        List<Loan> overdue = store.getOverdueLoans();
 
         StringBuilder sb = new StringBuilder();
         sb.append("============== OVERDUE LOANS ==============\n\n");
@@ -58,9 +83,10 @@ public class ReportGenerator {
         for (Loan l : overdue) {
             sb.append("Loan ID: ").append(l.getLoanId()).append("\n");
             sb.append("Customer: ").append(l.getCustomerId()).append("\n");
-            sb.append("Amount: ").append(l.getPrincipal()).append("\n");
-            sb.append("Remaining Balance: ").append(l.getBalance()).append("\n");
+            sb.append("Amount: ").append(Money.format(l.getPrincipalMinor())).append("\n");
+            sb.append("Remaining Balance: ").append(Money.format(l.getBalanceMinor())).append("\n");
             sb.append("Due Date: ").append(l.getDueDate()).append("\n");
+            sb.append("Penalty Due: ").append(Money.format(l.getPenaltyDueMinor())).append("\n");
             sb.append("Status: ").append(l.getStatus()).append("\n");
             sb.append("-------------------------------------------\n");
         }
@@ -80,9 +106,8 @@ public class ReportGenerator {
         sb.append("Customer Details:\n");
         sb.append(c.toString()).append("\n\n");
 
-        List<Loan> loans = store.getLoans().stream()
-                .filter(l -> l.getCustomerId().equals(customerId))
-                .collect(Collectors.toList());
+        List<Loan> loans = store.getLoansForCustomer(customerId);
+        InterestLedger ledger = store.getInterestLedger();
 
         if (loans.isEmpty()) {
             sb.append("This customer has no loans.\n");
@@ -90,23 +115,27 @@ public class ReportGenerator {
             return sb.toString();
         }
 
-        double totalOutstanding = loans.stream()
-                .mapToDouble(Loan::getBalance)
-                .sum();
+        long totalOutstanding = 0;
+        for (Loan l : loans) totalOutstanding += l.getBalanceMinor();
 
         sb.append("Loans:\n");
         sb.append("---------------------------------------------\n");
 
         for (Loan l : loans) {
             sb.append("Loan ID: ").append(l.getLoanId()).append("\n");
-            sb.append("Principal: ").append(l.getPrincipal()).append("\n");
-            sb.append("Balance: ").append(l.getBalance()).append("\n");
-            sb.append("Interest: ").append(l.calculateInterest()).append("\n");
+            sb.append("Principal: ").append(Money.format(l.getPrincipalMinor())).append("\n");
+            sb.append("Balance: ").append(Money.format(l.getBalanceMinor())).append("\n");
+            sb.append("Interest: ").append(Money.format(l.calculateInterestMinor())).append("\n");
+            sb.append("Interest Accrued: ").append(Money.format(ledger.getAccruedMinor(l.getLoanId()))).append("\n");
+            if (l.getPenaltyMinor() > 0) {
+                sb.append("Penalty: ").append(Money.format(l.getPenaltyMinor()))
+                        .append(" (due ").append(Money.format(l.getPenaltyDueMinor())).append(")\n");
+            }
             sb.append("Status: ").append(l.getStatus()).append("\n");
             sb.append("---------------------------------------------\n");
         }
 
-        sb.append(String.format("\nTotal Outstanding: %.2f\n", totalOutstanding));
+        sb.append("\nTotal Outstanding: ").append(Money.format(totalOutstanding)).append("\n");
         sb.append("\n=============================================\n");
 
         return sb.toString();
@@ -137,19 +166,23 @@ public class ReportGenerator {
         try (FileWriter writer = new FileWriter(filePath)) {
             List<Loan> loans = store.getLoans();
             writer.write("LoanID,CustomerID,Principal,Balance,Interest,Status,DueDate\n");
+            long done = 0;
             for (Loan l : loans) {
                 writer.write(String.join(",",
                         l.getLoanId(),
                         l.getCustomerId(),
-                        String.format("%.2f", l.getPrincipal()),
-                        String.format("%.2f", l.getBalance()),
-                        String.format("%.2f", l.calculateInterest()),
+                        Money.format(l.getPrincipalMinor()),
+                        Money.format(l.getBalanceMinor()),
+                        Money.format(l.calculateInterestMinor()),
                         l.getStatus(),
                         l.getDueDate().toString()
                 ));
                 writer.write("\n");
+                progress(++done, loans.size());
             }
             return true;
+        } catch (InterruptedIOException e) {
+            return cancelled(filePath);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -159,24 +192,42 @@ public class ReportGenerator {
     // Export overdue loans
     public boolean exportOverdueCSV(String filePath) {
         try (FileWriter writer = new FileWriter(filePath)) {
-            List<Loan> overdue = store.getLoans().stream()
-                    .peek(l -> l.checkOverdue(LocalDate.now()))
-                    .filter(l -> "OVERDUE".equals(l.getStatus()))
-                    .collect(Collectors.toList());
-            writer.write("LoanID,CustomerID,Principal,Balance,Interest,Status,DueDate\n");
+            store.sweepOverdue(LocalDate.now());
+            List<Loan> overdue = store.getOverdueLoans();
+            writer.write("LoanID,CustomerID,Principal,Balance,Interest,Status,DueDate,Penalty,PenaltyDue\n");
+            long done = 0;
             for (Loan l : overdue) {
                 writer.write(String.join(",",
                         l.getLoanId(),
                         l.getCustomerId(),
-                        String.format("%.2f", l.getPrincipal()),
-                        String.format("%.2f", l.getBalance()),
-                        String.format("%.2f", l.calculateInterest()),
+                        Money.format(l.getPrincipalMinor()),
+                        Money.format(l.getBalanceMinor()),
+                        Money.format(l.calculateInterestMinor()),
                         l.getStatus(),
-                        l.getDueDate().toString()
+                        l.getDueDate().toString(),
+                        Money.format(l.getPenaltyMinor()),
+                        Money.format(l.getPenaltyDueMinor())
                 ));
                 writer.write("\n");
+                progress(++done, overdue.size());
             }
             return true;
+        } catch (InterruptedIOException e) {
+            return cancelled(filePath);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Export the installment schedule of every loan, streamed row by row
+    public boolean exportAmortizationCSV(String filePath) {
+        try {
+            List<Loan> loans = store.getLoans();
+            AmortizationSchedule.writeCSV(loans, filePath, done -> listener.onProgress(done, loans.size()));
+            return true;
+        } catch (InterruptedIOException e) {
+            return cancelled(filePath);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -188,16 +239,14 @@ public class ReportGenerator {
         try (FileWriter writer = new FileWriter(filePath)) {
             Customer c = store.findCustomerById(customerId);
             if (c == null) return false;
-            List<Loan> loans = store.getLoans().stream()
-                    .filter(l -> l.getCustomerId().equals(customerId))
-                    .collect(Collectors.toList());
+            List<Loan> loans = store.getLoansForCustomer(customerId);
             writer.write("LoanID,Principal,Balance,Interest,Status,DueDate\n");
             for (Loan l : loans) {
                 writer.write(String.join(",",
                         l.getLoanId(),
-                        String.format("%.2f", l.getPrincipal()),
-                        String.format("%.2f", l.getBalance()),
-                        String.format("%.2f", l.calculateInterest()),
+                        Money.format(l.getPrincipalMinor()),
+                        Money.format(l.getBalanceMinor()),
+                        Money.format(l.calculateInterestMinor()),
                         l.getStatus(),
                         l.getDueDate().toString()
                 ));
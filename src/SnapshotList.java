@@ -0,0 +1,87 @@
+import java.util.*;
+
+/**
+ * Append-mostly list that hands out immutable point-in-time views without
+ * copying. Elements live in fixed-size chunks; an append only writes the slot
+ * just past the current size, which no existing view can see, so every view
+ * shares its chunks with the live list and with the other views. Growing the
+ * chunk table copies only chunk references.
+ *
+ * Removal is rare (deleting a customer): the chunks from the removed element
+ * onward are cloned before shifting, so older views keep their contents.
+ *
+ * Mutators must be serialized by the caller. Views are safe to read from any
+ * thread once published through a volatile field or a lock.
+ */
+public final class SnapshotList<T> {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks = new Object[8][];
+    private int size;
+    private List<T> view;   // view of the current contents, dropped on every change
+
+    public int size() { return size; }
+
+    public void add(T item) {
+        int c = size >>> CHUNK_BITS;
+        if (c == chunks.length) chunks = Arrays.copyOf(chunks, c * 2);
+        if (chunks[c] == null) chunks[c] = new Object[CHUNK_SIZE];
+        chunks[c][size & CHUNK_MASK] = item;
+        size++;
+        view = null;
+    }
+
+    public boolean remove(Object item) {
+        int i = indexOf(item);
+        if (i < 0) return false;
+        Object[][] copy = chunks.clone();
+        for (int c = i >>> CHUNK_BITS; c < copy.length && copy[c] != null; c++) copy[c] = copy[c].clone();
+        chunks = copy;
+        for (int j = i; j < size - 1; j++) chunks[j >>> CHUNK_BITS][j & CHUNK_MASK] = chunks[(j + 1) >>> CHUNK_BITS][(j + 1) & CHUNK_MASK];
+        size--;
+        chunks[size >>> CHUNK_BITS][size & CHUNK_MASK] = null;
+        view = null;
+        return true;
+    }
+
+    public void clear() {
+        chunks = new Object[8][];
+        size = 0;
+        view = null;
+    }
+
+    // Immutable view of the current contents; O(1), and the same object until the next change
+    public List<T> view() {
+        if (view == null) view = new View<>(chunks, size);
+        return view;
+    }
+
+    private int indexOf(Object item) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(item, chunks[i >>> CHUNK_BITS][i & CHUNK_MASK])) return i;
+        }
+        return -1;
+    }
+
+    private static final class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        View(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
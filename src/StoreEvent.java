@@ -0,0 +1,54 @@
+/**
+ * A change made to the DataStore. Events are delivered on the thread that made
+ * the change, after its locks are released, in the order the changes were
+ * applied on that thread. Listeners must be quick; a UI hands them off to its
+ * own thread.
+ */
+public final class StoreEvent {
+
+    public enum Type {
+        CUSTOMER_ADDED, CUSTOMER_EDITED, CUSTOMER_DELETED,
+        LOAN_ISSUED,
+        PAYMENT_APPLIED,        // loan is the loan paid against, or null for an unknown loan ID
+        LOAN_STATUS_CHANGED,    // previousStatus holds the status before the change
+        LOAN_UPDATED            // balance or penalty changed without a status move
+    }
+
+    public interface Listener {
+        void onChange(StoreEvent e);
+    }
+
+    private final Type type;
+    private final Customer customer;
+    private final Loan loan;
+    private final Payment payment;
+    private final String previousStatus;
+
+    private StoreEvent(Type type, Customer customer, Loan loan, Payment payment, String previousStatus) {
+        this.type = type;
+        this.customer = customer;
+        this.loan = loan;
+        this.payment = payment;
+        this.previousStatus = previousStatus;
+    }
+
+    static StoreEvent customer(Type type, Customer c) { return new StoreEvent(type, c, null, null, null); }
+    static StoreEvent loanIssued(Loan l) { return new StoreEvent(Type.LOAN_ISSUED, null, l, null, null); }
+    static StoreEvent paymentApplied(Payment p, Loan l) { return new StoreEvent(Type.PAYMENT_APPLIED, null, l, p, null); }
+    static StoreEvent statusChanged(Loan l, String before) { return new StoreEvent(Type.LOAN_STATUS_CHANGED, null, l, null, before); }
+    static StoreEvent loanUpdated(Loan l) { return new StoreEvent(Type.LOAN_UPDATED, null, l, null, null); }
+
+    public Type getType() { return type; }
+    public Customer getCustomer() { return customer; }
+    public Loan getLoan() { return loan; }
+    public Payment getPayment() { return payment; }
+    public String getPreviousStatus() { return previousStatus; }
+
+    @Override
+    public String toString() {
+        String subject = customer != null ? customer.getCustomerId()
+                : payment != null ? payment.getPaymentId()
+                : loan != null ? loan.getLoanId() : "-";
+        return type + " " + subject;
+    }
+}
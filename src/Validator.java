@@ -1,5 +1,14 @@
+import java.util.regex.Pattern;
+
 public class Validator {
 
+    // Compiled once; String.matches would recompile the pattern on every call
+    private static final Pattern NAME_CHARS = Pattern.compile("^[a-zA-Z\\s'-]+$");
+    private static final Pattern NAME_FILLER = Pattern.compile("[\\s'-]*");
+    private static final Pattern CNIC_DIGITS = Pattern.compile("^[0-9]{13}$");
+    private static final Pattern PHONE = Pattern.compile("^03[0-9]{9}$");
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+
 
     public static boolean isValidName(String name) {
         if (name == null) {
@@ -20,12 +29,12 @@ public class Validator {
 
         // 3. Check character set using a regular expression
         // Pattern allows letters, spaces, hyphens, and apostrophes.
-        if (!trimmedName.matches("^[a-zA-Z\\s'-]+$")) {
+        if (!NAME_CHARS.matcher(trimmedName).matches()) {
             return false;
         }
 
         // Prevents names that are just spaces or invalid characters
-        if (trimmedName.matches("[\\s'-]*")) {
+        if (NAME_FILLER.matcher(trimmedName).matches()) {
             return false;
         }
 
@@ -38,7 +47,7 @@ public class Validator {
     public static boolean isValidCNIC(String cnic) {
         if (cnic == null) return false;
         String clean = cnic.replace("-", "").trim();
-        return clean.matches("^[0-9]{13}$");   // Must be 13 digits
+        return CNIC_DIGITS.matcher(clean).matches();   // Must be 13 digits
     }
 
 
@@ -46,7 +55,7 @@ public class Validator {
         if (cnic == null) return null;
         String clean = cnic.replace("-", "").trim();
 
-        if (!clean.matches("^[0-9]{13}$")) return null;  // Must be 13 digits
+        if (!CNIC_DIGITS.matcher(clean).matches()) return null;  // Must be 13 digits
 
         return clean.substring(0, 5) + "-" +
                 clean.substring(5, 12) + "-" +
@@ -60,7 +69,7 @@ public class Validator {
         // Remove spaces for validation
         phone = phone.replace(" ", "").trim();
         // Check for 11 digits starting with '03'
-        return phone.matches("^03[0-9]{9}$");
+        return PHONE.matcher(phone).matches();
     }
 
     // ---------------- EMAIL ----------------
@@ -69,7 +78,15 @@ public class Validator {
     public static boolean isValidEmail(String email) {
         if (email == null) return false;
         // Basic pattern: word characters, plus, underscore, dot, hyphen, @, domain, dot, TLD
-        return email.trim().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+        return EMAIL.matcher(email.trim()).matches();
+    }
+
+    // ---------------- CUSTOMER ----------------
+
+    // Same rules DataStore.addCustomer has always applied
+    public static boolean isValidCustomer(Customer c) {
+        return c != null && !c.getName().isEmpty() && !c.getCnic().isEmpty() && !c.getPhoneNumber().isEmpty()
+                && isValidCNIC(c.getCnic()) && isValidPhone(c.getPhoneNumber()) && isValidEmail(c.getEmail());
     }
 }
 